@@ -0,0 +1,66 @@
+package co.selim.migx.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes generated migrations to disk, as a plain directory or packaged in a jar.
+ */
+final class BenchmarkScripts {
+
+  static final String LOCATION = "db/migration";
+
+  private BenchmarkScripts() {
+  }
+
+  /**
+   * Writes {@code count} versioned scripts with {@code statements} inserts each below {@code root/db/migration}.
+   */
+  static Path writeDirectory(Path root, int count, int statements) throws IOException {
+    Path directory = Files.createDirectories(root.resolve(LOCATION));
+    for (int i = 1; i <= count; i++) {
+      Files.writeString(directory.resolve(filename(i)), script(i, statements));
+    }
+    return directory;
+  }
+
+  static Path writeJar(Path jar, int count, int statements) throws IOException {
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+      for (int i = 1; i <= count; i++) {
+        zip.putNextEntry(new ZipEntry(LOCATION + "/" + filename(i)));
+        zip.write(script(i, statements).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+    return jar;
+  }
+
+  static void delete(Path path) {
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String filename(int version) {
+    return "V" + version + "__change_" + version + ".sql";
+  }
+
+  private static String script(int version, int statements) {
+    StringBuilder script = new StringBuilder("create table t" + version + " (id int, name varchar(64));\n");
+    for (int i = 0; i < statements; i++) {
+      script.append("insert into t").append(version).append(" values (").append(i).append(", 'name ").append(i).append("');\n");
+    }
+    return script.toString();
+  }
+}
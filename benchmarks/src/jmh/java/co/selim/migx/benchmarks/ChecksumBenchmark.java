@@ -0,0 +1,38 @@
+package co.selim.migx.benchmarks;
+
+import co.selim.migx.core.impl.util.Checksums;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+
+@State(Scope.Benchmark)
+public class ChecksumBenchmark {
+
+  private static final byte[] LINE = "insert into countries (code, name) values ('CH', 'Switzerland');\r\n"
+    .getBytes(StandardCharsets.UTF_8);
+
+  // 1KB, 1MB, 100MB and 500MB
+  @Param({"1024", "1048576", "104857600", "524288000"})
+  public int size;
+
+  private Buffer content;
+
+  @Setup
+  public void setUp() {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = LINE[i % LINE.length];
+    }
+    content = Buffer.buffer(bytes);
+  }
+
+  @Benchmark
+  public int checksum() {
+    return Checksums.calculateChecksum(content);
+  }
+}
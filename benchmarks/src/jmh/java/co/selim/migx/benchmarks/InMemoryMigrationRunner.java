@@ -0,0 +1,127 @@
+package co.selim.migx.benchmarks;
+
+import co.selim.migx.core.impl.AppliedMigration;
+import co.selim.migx.core.impl.HistoryFingerprint;
+import co.selim.migx.core.impl.SchemaHistory;
+import co.selim.migx.core.impl.SqlMigrationScript;
+import co.selim.migx.core.impl.runner.GroupMigrationRunner;
+import co.selim.migx.core.impl.runner.RoundTripCounter;
+import co.selim.migx.core.impl.util.Pools;
+import co.selim.migx.core.impl.util.SqlStatementSplitter;
+import co.selim.migx.core.impl.util.Utf8ChunkDecoder;
+import co.selim.migx.core.output.MigrationOutput;
+import co.selim.migx.core.output.MigrationOutputBuilder;
+import io.vertx.core.Future;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Stands in for a database that starts out empty on every run. Scripts are read and split into statements,
+ * which are counted instead of being executed, so that a run measures Migx itself.
+ */
+final class InMemoryMigrationRunner implements GroupMigrationRunner {
+
+  private long statements;
+
+  @Override
+  public Future<Boolean> tryLock(SqlConnection connection) {
+    return Future.succeededFuture(true);
+  }
+
+  @Override
+  public Future<Void> unlock(SqlConnection connection) {
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> endSession(SqlConnection connection) {
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<String> useSchema(SqlConnection connection, String schema) {
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> restoreSchema(SqlConnection connection, String previousSchema) {
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<HistoryFingerprint> loadHistoryFingerprint(SqlConnection connection) {
+    return Future.failedFuture("The schema history table does not exist");
+  }
+
+  @Override
+  public Future<Integer> loadMaxInstalledRank(SqlConnection connection) {
+    return Future.succeededFuture(0);
+  }
+
+  @Override
+  public Future<SchemaHistory> loadSchemaHistory(SqlConnection connection) {
+    return Future.succeededFuture(SchemaHistory.empty());
+  }
+
+  @Override
+  public Future<SchemaHistory> readSchemaHistory(SqlConnection connection) {
+    return Future.succeededFuture(SchemaHistory.empty());
+  }
+
+  @Override
+  public Future<MigrationOutput> run(SqlConnection connection, SqlMigrationScript script, int installedRank) {
+    return execute(connection, script);
+  }
+
+  @Override
+  public Future<MigrationOutput> execute(SqlConnection connection, SqlMigrationScript script) {
+    Utf8ChunkDecoder decoder = new Utf8ChunkDecoder();
+    SqlStatementSplitter splitter = new SqlStatementSplitter(Pools.Implementation.POSTGRES);
+    return script.content()
+      .read(chunk -> {
+        splitter.feed(decoder.decode(chunk), statement -> statements++);
+        return Future.succeededFuture();
+      })
+      .map(x -> {
+        splitter.feed(decoder.finish(), statement -> statements++);
+        splitter.finish(statement -> statements++);
+        return MigrationOutputBuilder.builder()
+          .category(script.category().toString())
+          .version(script.version())
+          .description(script.description())
+          .type("SQL")
+          .filepath(script.filepath())
+          .executionTime(0)
+          .build();
+      });
+  }
+
+  @Override
+  public Future<List<MigrationOutput>> runGroup(SqlConnection connection, List<SqlMigrationScript> scripts, IntSupplier installedRanks) {
+    List<MigrationOutput> outputs = new ArrayList<>(scripts.size());
+    Future<Void> chain = Future.succeededFuture();
+    for (SqlMigrationScript script : scripts) {
+      chain = chain.compose(x -> execute(connection, script).map(output -> {
+        outputs.add(output);
+        return null;
+      }));
+    }
+    return chain.map(outputs);
+  }
+
+  @Override
+  public Future<Void> updateHistoryTable(SqlConnection connection, List<AppliedMigration> migrations) {
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public void startCounting(SqlConnection connection, RoundTripCounter counter) {
+  }
+
+  @Override
+  public void stopCounting(SqlConnection connection) {
+  }
+}
@@ -0,0 +1,35 @@
+package co.selim.migx.benchmarks;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * A pool of connections that can only be acquired and closed, all statements go to the {@link InMemoryMigrationRunner}.
+ */
+final class InMemoryPool {
+
+  private InMemoryPool() {
+  }
+
+  static Pool create() {
+    SqlConnection connection = proxy(SqlConnection.class, null);
+    return proxy(Pool.class, connection);
+  }
+
+  private static <T> T proxy(Class<T> type, SqlConnection connection) {
+    Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) ->
+      switch (method.getName()) {
+        case "getConnection" -> Future.succeededFuture(connection);
+        case "close" -> Future.succeededFuture();
+        case "hashCode" -> System.identityHashCode(self);
+        case "equals" -> self == args[0];
+        case "toString" -> type.getSimpleName();
+        default -> throw new UnsupportedOperationException(method.getName());
+      }
+    );
+    return type.cast(proxy);
+  }
+}
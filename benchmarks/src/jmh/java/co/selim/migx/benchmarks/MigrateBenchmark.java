@@ -0,0 +1,57 @@
+package co.selim.migx.benchmarks;
+
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.PoolMigx;
+import co.selim.migx.core.output.MigrationOutput;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A full migration of an empty database, from scanning the scripts to recording them, against an in-memory
+ * database so that the network and the database don't dominate the measurement.
+ */
+@State(Scope.Benchmark)
+public class MigrateBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int scripts;
+
+  @Param({"10", "1000"})
+  public int statementsPerScript;
+
+  private Vertx vertx;
+  private Path directory;
+  private PoolMigx migx;
+
+  @Setup
+  public void setUp() throws Exception {
+    vertx = Vertx.vertx();
+    directory = Files.createTempDirectory("migx-benchmark");
+    Path location = BenchmarkScripts.writeDirectory(directory, scripts, statementsPerScript);
+    MigxOptions options = new MigxOptions();
+    migx = new PoolMigx(vertx, InMemoryPool.create(), List.of(location.toString()), new InMemoryMigrationRunner(), options);
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close().toCompletionStage().toCompletableFuture().join();
+    BenchmarkScripts.delete(directory);
+  }
+
+  @Benchmark
+  public List<MigrationOutput> migrate() {
+    return migx.migrate()
+      .toCompletionStage()
+      .toCompletableFuture()
+      .join();
+  }
+}
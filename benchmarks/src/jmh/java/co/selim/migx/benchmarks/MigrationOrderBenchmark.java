@@ -0,0 +1,39 @@
+package co.selim.migx.benchmarks;
+
+import co.selim.migx.core.impl.util.MigrationOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+@State(Scope.Benchmark)
+public class MigrationOrderBenchmark {
+
+  private static final int PATHS = 10_000;
+
+  private List<String> paths;
+
+  @Setup
+  public void setUp() {
+    paths = new ArrayList<>(PATHS);
+    for (int i = 0; i < PATHS; i++) {
+      // a few repeatables and multi-part versions, so that every comparison path is taken
+      if (i % 10 == 0) {
+        paths.add("db/migration/R__view_" + i + ".sql");
+      } else {
+        paths.add("db/migration/V" + (i / 100) + "." + (i % 100) + "__change_" + i + ".sql");
+      }
+    }
+    Collections.shuffle(paths, new Random(42));
+  }
+
+  @Benchmark
+  public List<String> sort() {
+    return MigrationOrder.sort(paths);
+  }
+}
@@ -0,0 +1,86 @@
+package co.selim.migx.benchmarks;
+
+import co.selim.migx.core.impl.MigrationFile;
+import co.selim.migx.core.impl.MigrationSource;
+import co.selim.migx.core.impl.ScriptContent;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Lists the scripts of a location and reads all of them, either from a directory or from a jar on the classpath.
+ */
+@State(Scope.Benchmark)
+public class ScriptLoadingBenchmark {
+
+  @Param({"filesystem", "classpath"})
+  public String source;
+
+  @Param({"100", "1000"})
+  public int scripts;
+
+  private Vertx vertx;
+  private Path directory;
+  private URLClassLoader classLoader;
+  private MigrationSource migrationSource;
+  private String location;
+
+  @Setup
+  public void setUp() throws Exception {
+    vertx = Vertx.vertx();
+    directory = Files.createTempDirectory("migx-benchmark");
+    if (source.equals("filesystem")) {
+      location = BenchmarkScripts.writeDirectory(directory, scripts, 20).toString();
+      migrationSource = new MigrationSource(vertx);
+    } else {
+      Path jar = BenchmarkScripts.writeJar(directory.resolve("migrations.jar"), scripts, 20);
+      classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null);
+      location = BenchmarkScripts.LOCATION;
+      // the source resolves classpath locations with the context class loader it was created on
+      Thread thread = Thread.currentThread();
+      ClassLoader previous = thread.getContextClassLoader();
+      thread.setContextClassLoader(classLoader);
+      try {
+        migrationSource = new MigrationSource(vertx);
+      } finally {
+        thread.setContextClassLoader(previous);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().join();
+    if (classLoader != null) {
+      classLoader.close();
+    }
+    BenchmarkScripts.delete(directory);
+  }
+
+  @Benchmark
+  public long load() {
+    return migrationSource.scan(location)
+      .compose(files -> {
+        List<Future<Buffer>> contents = files.stream()
+          .map(MigrationFile::content)
+          .map(ScriptContent::readFully)
+          .toList();
+        return Future.all(contents).map(all -> contents.stream().mapToLong(content -> content.result().length()).sum());
+      })
+      .toCompletionStage()
+      .toCompletableFuture()
+      .join();
+  }
+}
@@ -0,0 +1,30 @@
+package co.selim.migx.core;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.SqlConnection;
+
+/**
+ * A migration written in Java, e.g. to stream rows with a cursor and write them back with
+ * {@link io.vertx.sqlclient.PreparedQuery#executeBatch(java.util.List)}. It is ordered together with the
+ * migration scripts by its version and recorded in the schema history under its class name.
+ */
+public interface JavaMigration {
+
+  /**
+   * The version of a versioned migration, {@code null} for a repeatable migration, which runs again
+   * whenever its checksum changes.
+   */
+  String getVersion();
+
+  String getDescription();
+
+  /**
+   * Recorded in the schema history, a changed checksum of an applied versioned migration is a mismatch.
+   */
+  int getChecksum();
+
+  /**
+   * Runs the migration on the connection, within the transaction of the migration on Postgres.
+   */
+  Future<Void> migrate(SqlConnection connection);
+}
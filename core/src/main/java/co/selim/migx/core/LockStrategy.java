@@ -0,0 +1,16 @@
+package co.selim.migx.core;
+
+/**
+ * What an instance does after it had to wait for another instance to release the migration lock.
+ */
+public enum LockStrategy {
+  /**
+   * Reads the whole schema history and applies whatever is still pending.
+   */
+  WAIT,
+  /**
+   * Assumes the other instance applied the same migrations and only compares a fingerprint of the schema
+   * history with its scripts. Falls back to {@link #WAIT} if they don't match.
+   */
+  FOLLOW
+}
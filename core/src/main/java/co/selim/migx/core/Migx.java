@@ -2,12 +2,17 @@ package co.selim.migx.core;
 
 import co.selim.migx.core.impl.PoolMigx;
 import co.selim.migx.core.impl.runner.MigrationRunner;
-import co.selim.migx.core.impl.runner.MySQLMigrationRunner;
-import co.selim.migx.core.impl.runner.PgMigrationRunner;
+import co.selim.migx.core.impl.util.Pools;
+import co.selim.migx.core.output.MigrationEvent;
 import co.selim.migx.core.output.MigrationOutput;
+import co.selim.migx.core.output.MigrationPlan;
+import co.selim.migx.core.output.MigrationSummary;
+import co.selim.migx.core.output.MigrationValidation;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnectOptions;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -19,16 +24,52 @@ public interface Migx {
 
   Future<List<MigrationOutput>> migrate();
 
+  Future<MigrationSummary> migrateWithSummary();
+
+  /**
+   * Migrates like {@link #migrate()}, reporting the progress as events. The run starts right away and waits
+   * before its next script while the stream is paused and enough events are buffered. A failed run ends
+   * the stream with its exception instead of the end handler.
+   */
+  ReadStream<MigrationEvent> migrateStream();
+
+  /**
+   * Resolves the pending migrations and checksum mismatches without executing anything. Only reads the
+   * schema history and doesn't take the migration lock, so it is cheap and doesn't wait for running migrations.
+   */
+  Future<MigrationPlan> plan();
+
+  /**
+   * Compares the local migrations with the schema history. The result is cached for
+   * {@link MigxOptions#getValidationCacheTtl()} and revalidated early if the schema history changed,
+   * which costs a single query per call.
+   */
+  Future<MigrationValidation> validate();
+
   static Migx create(Vertx vertx, Pool pool) {
     return create(vertx, pool, List.of("db/migration"));
   }
 
   static Migx create(Vertx vertx, Pool pool, List<String> migrationPath) {
-    MigrationRunner migrationRunner = switch (identify(pool)) {
-      case POSTGRES -> new PgMigrationRunner(vertx, pool);
-      case MYSQL -> new MySQLMigrationRunner(vertx, pool);
-    };
-    return new PoolMigx(vertx, migrationPath, migrationRunner);
+    return create(vertx, pool, migrationPath, new MigxOptions());
+  }
+
+  static Migx create(Vertx vertx, Pool pool, List<String> migrationPath, MigxOptions options) {
+    return create(vertx, pool, migrationPath, List.of(), options);
+  }
+
+  /**
+   * @param javaMigrations ordered together with the scripts of the migration paths
+   */
+  static Migx create(
+    Vertx vertx,
+    Pool pool,
+    List<String> migrationPath,
+    List<JavaMigration> javaMigrations,
+    MigxOptions options
+  ) {
+    MigxOptions copy = new MigxOptions(options);
+    return new PoolMigx(vertx, pool, migrationPath, List.copyOf(javaMigrations), createRunner(vertx, identify(pool), copy), copy);
   }
 
   static Migx create(Vertx vertx, Pool pool, String migrationPath, String... additionalMigrationPaths) {
@@ -37,4 +78,53 @@ public interface Migx {
     allPaths.addAll(Arrays.asList(additionalMigrationPaths));
     return create(vertx, pool, allPaths);
   }
+
+  static Migx create(Vertx vertx, SqlConnectOptions connectOptions) {
+    return create(vertx, connectOptions, List.of("db/migration"));
+  }
+
+  static Migx create(Vertx vertx, SqlConnectOptions connectOptions, List<String> migrationPath) {
+    return create(vertx, connectOptions, migrationPath, new MigxOptions());
+  }
+
+  static Migx create(Vertx vertx, SqlConnectOptions connectOptions, List<String> migrationPath, MigxOptions options) {
+    return create(vertx, connectOptions, migrationPath, List.of(), options);
+  }
+
+  /**
+   * @param javaMigrations ordered together with the scripts of the migration paths
+   */
+  static Migx create(
+    Vertx vertx,
+    SqlConnectOptions connectOptions,
+    List<String> migrationPath,
+    List<JavaMigration> javaMigrations,
+    MigxOptions options
+  ) {
+    MigxOptions copy = new MigxOptions(options);
+    return new PoolMigx(
+      vertx,
+      connectOptions,
+      migrationPath,
+      List.copyOf(javaMigrations),
+      createRunner(vertx, identify(connectOptions), copy),
+      copy
+    );
+  }
+
+  static Migx create(
+    Vertx vertx,
+    SqlConnectOptions connectOptions,
+    String migrationPath,
+    String... additionalMigrationPaths
+  ) {
+    List<String> allPaths = new ArrayList<>(additionalMigrationPaths.length + 1);
+    allPaths.add(migrationPath);
+    allPaths.addAll(Arrays.asList(additionalMigrationPaths));
+    return create(vertx, connectOptions, allPaths);
+  }
+
+  private static MigrationRunner createRunner(Vertx vertx, Pools.Implementation implementation, MigxOptions options) {
+    return MigrationRunner.create(vertx, implementation, options, MigrationRunner.DEFAULT_LOCK_NAME);
+  }
 }
@@ -0,0 +1,65 @@
+package co.selim.migx.core;
+
+import co.selim.migx.core.output.RoundTripKind;
+
+/**
+ * Receives timings and counters of migration runs, e.g. to export them as metrics. Callbacks are invoked on
+ * event loop threads, possibly several of them at once, and must not block.
+ * See {@link MigxMetrics} for a built-in implementation.
+ */
+public interface MigxListener {
+
+  MigxListener NOOP = new MigxListener() {
+  };
+
+  enum Phase {
+    /**
+     * Loading the manifest, or listing the migrations of a location.
+     */
+    SCAN,
+    /**
+     * Waiting for the content of a script, whether it is read for its checksum, prefetched or executed.
+     */
+    READ,
+    /**
+     * Calculating the checksum of a script, excluding the time spent reading it.
+     */
+    CHECKSUM,
+    /**
+     * Waiting for the migration lock.
+     */
+    LOCK_WAIT,
+    /**
+     * Executing the statements of a script.
+     */
+    EXECUTE,
+    /**
+     * Writing entries to the schema history.
+     */
+    HISTORY_WRITE
+  }
+
+  /**
+   * @param script the location relative script, {@code null} for time that isn't spent on a single script
+   */
+  default void phaseCompleted(Phase phase, String script, long nanos) {
+  }
+
+  default void bytesRead(String script, long bytes) {
+  }
+
+  default void roundTrips(RoundTripKind kind, int count) {
+  }
+
+  /**
+   * Called once a run succeeded, with the time it took from start to finish.
+   */
+  default void runCompleted(long nanos) {
+  }
+
+  /**
+   * Called once a run failed, with the time it took until it failed.
+   */
+  default void runFailed(long nanos, Throwable cause) {
+  }
+}
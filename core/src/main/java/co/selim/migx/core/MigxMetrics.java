@@ -0,0 +1,95 @@
+package co.selim.migx.core;
+
+import co.selim.migx.core.output.RoundTripKind;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the timings and counters of all runs without allocating, so that it can stay enabled in production.
+ */
+public class MigxMetrics implements MigxListener {
+
+  private static final Phase[] PHASES = Phase.values();
+  private static final int ROUND_TRIP_KINDS = RoundTripKind.values().length;
+
+  private final AtomicLongArray phaseNanos = new AtomicLongArray(PHASES.length);
+  private final AtomicLongArray phaseCounts = new AtomicLongArray(PHASES.length);
+  private final LongAdder bytesRead = new LongAdder();
+  private final AtomicLongArray roundTrips = new AtomicLongArray(ROUND_TRIP_KINDS);
+  private final LongAdder runs = new LongAdder();
+  private final LongAdder runNanos = new LongAdder();
+  private final LongAdder failedRuns = new LongAdder();
+  private final LongAdder failedRunNanos = new LongAdder();
+
+  @Override
+  public void phaseCompleted(Phase phase, String script, long nanos) {
+    phaseNanos.addAndGet(phase.ordinal(), nanos);
+    phaseCounts.incrementAndGet(phase.ordinal());
+  }
+
+  @Override
+  public void bytesRead(String script, long bytes) {
+    bytesRead.add(bytes);
+  }
+
+  @Override
+  public void roundTrips(RoundTripKind kind, int count) {
+    roundTrips.addAndGet(kind.ordinal(), count);
+  }
+
+  @Override
+  public void runCompleted(long nanos) {
+    runs.increment();
+    runNanos.add(nanos);
+  }
+
+  @Override
+  public void runFailed(long nanos, Throwable cause) {
+    failedRuns.increment();
+    failedRunNanos.add(nanos);
+  }
+
+  public long getNanos(Phase phase) {
+    return phaseNanos.get(phase.ordinal());
+  }
+
+  /**
+   * The number of times the phase completed, e.g. once per script for {@link Phase#EXECUTE}.
+   */
+  public long getCount(Phase phase) {
+    return phaseCounts.get(phase.ordinal());
+  }
+
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  public long getRoundTrips() {
+    long total = 0;
+    for (int i = 0; i < ROUND_TRIP_KINDS; i++) {
+      total += roundTrips.get(i);
+    }
+    return total;
+  }
+
+  public long getRoundTrips(RoundTripKind kind) {
+    return roundTrips.get(kind.ordinal());
+  }
+
+  public long getRuns() {
+    return runs.sum();
+  }
+
+  public long getRunNanos() {
+    return runNanos.sum();
+  }
+
+  public long getFailedRuns() {
+    return failedRuns.sum();
+  }
+
+  public long getFailedRunNanos() {
+    return failedRunNanos.sum();
+  }
+}
@@ -0,0 +1,340 @@
+package co.selim.migx.core;
+
+public class MigxOptions {
+
+  /**
+   * Default for whether all pending versioned migrations are applied in a single transaction = {@code false}
+   */
+  public static final boolean DEFAULT_GROUP = false;
+
+  /**
+   * Default maximum number of statements of a script that are sent before their results arrived = 32
+   */
+  public static final int DEFAULT_MAX_STATEMENTS_IN_FLIGHT = 32;
+
+  /**
+   * Default number of rows of a data file that are inserted with a single batch = 1000
+   */
+  public static final int DEFAULT_DATA_BATCH_SIZE = 1000;
+
+  /**
+   * Default classpath location of the build-time migration manifest = {@code null}, no manifest is used
+   */
+  public static final String DEFAULT_MANIFEST_PATH = null;
+
+  /**
+   * Default number of scripts that are read ahead while a script is executed = 4
+   */
+  public static final int DEFAULT_PREFETCH_WINDOW = 4;
+
+  /**
+   * Default maximum number of bytes of scripts that are read ahead = 16 MiB
+   */
+  public static final long DEFAULT_PREFETCH_MAX_BYTES = 16 * 1024 * 1024;
+
+  /**
+   * Default number of connections repeatable migrations run on concurrently = 1
+   */
+  public static final int DEFAULT_REPEATABLE_CONCURRENCY = 1;
+
+  /**
+   * Default time in milliseconds a validation result is reused for = 10000
+   */
+  public static final long DEFAULT_VALIDATION_CACHE_TTL = 10_000;
+
+  /**
+   * Default number of targets of a {@link MultiMigx} that are migrated at once = 4
+   */
+  public static final int DEFAULT_TARGET_CONCURRENCY = 4;
+
+  /**
+   * Default for what an instance does after waiting for another one's migration lock = {@link LockStrategy#WAIT}
+   */
+  public static final LockStrategy DEFAULT_LOCK_STRATEGY = LockStrategy.WAIT;
+
+  /**
+   * Default time in milliseconds to wait for the migration lock = 600000
+   */
+  public static final long DEFAULT_LOCK_WAIT_TIMEOUT = 600_000;
+
+  /**
+   * Default time in milliseconds before the first retry to acquire the migration lock = 100
+   */
+  public static final long DEFAULT_LOCK_RETRY_INTERVAL = 100;
+
+  /**
+   * Default maximum time in milliseconds between retries to acquire the migration lock = 2000
+   */
+  public static final long DEFAULT_LOCK_MAX_RETRY_INTERVAL = 2_000;
+
+  private boolean group;
+  private int maxStatementsInFlight;
+  private int dataBatchSize;
+  private String manifestPath;
+  private int prefetchWindow;
+  private long prefetchMaxBytes;
+  private int repeatableConcurrency;
+  private long validationCacheTtl;
+  private int targetConcurrency;
+  private LockStrategy lockStrategy;
+  private long lockWaitTimeout;
+  private long lockRetryInterval;
+  private long lockMaxRetryInterval;
+  private MigxListener listener;
+
+  public MigxOptions() {
+    this.group = DEFAULT_GROUP;
+    this.maxStatementsInFlight = DEFAULT_MAX_STATEMENTS_IN_FLIGHT;
+    this.dataBatchSize = DEFAULT_DATA_BATCH_SIZE;
+    this.manifestPath = DEFAULT_MANIFEST_PATH;
+    this.prefetchWindow = DEFAULT_PREFETCH_WINDOW;
+    this.prefetchMaxBytes = DEFAULT_PREFETCH_MAX_BYTES;
+    this.repeatableConcurrency = DEFAULT_REPEATABLE_CONCURRENCY;
+    this.validationCacheTtl = DEFAULT_VALIDATION_CACHE_TTL;
+    this.targetConcurrency = DEFAULT_TARGET_CONCURRENCY;
+    this.lockStrategy = DEFAULT_LOCK_STRATEGY;
+    this.lockWaitTimeout = DEFAULT_LOCK_WAIT_TIMEOUT;
+    this.lockRetryInterval = DEFAULT_LOCK_RETRY_INTERVAL;
+    this.lockMaxRetryInterval = DEFAULT_LOCK_MAX_RETRY_INTERVAL;
+    this.listener = MigxListener.NOOP;
+  }
+
+  public MigxOptions(MigxOptions other) {
+    this.group = other.group;
+    this.maxStatementsInFlight = other.maxStatementsInFlight;
+    this.dataBatchSize = other.dataBatchSize;
+    this.manifestPath = other.manifestPath;
+    this.prefetchWindow = other.prefetchWindow;
+    this.prefetchMaxBytes = other.prefetchMaxBytes;
+    this.repeatableConcurrency = other.repeatableConcurrency;
+    this.validationCacheTtl = other.validationCacheTtl;
+    this.targetConcurrency = other.targetConcurrency;
+    this.lockStrategy = other.lockStrategy;
+    this.lockWaitTimeout = other.lockWaitTimeout;
+    this.lockRetryInterval = other.lockRetryInterval;
+    this.lockMaxRetryInterval = other.lockMaxRetryInterval;
+    this.listener = other.listener;
+  }
+
+  public boolean isGroup() {
+    return group;
+  }
+
+  /**
+   * Apply all pending versioned migrations and their history entries in a single transaction.
+   * If any of them fails, none of them is applied. Only supported on PostgreSQL.
+   */
+  public MigxOptions setGroup(boolean group) {
+    this.group = group;
+    return this;
+  }
+
+  public int getMaxStatementsInFlight() {
+    return maxStatementsInFlight;
+  }
+
+  /**
+   * Scripts are split into statements, which are pipelined to the database. This limits how many of them
+   * are in flight at once. MySQL executes scripts outside of transactions, so statements are always sent
+   * one at a time there to stop at the first failing statement.
+   */
+  public MigxOptions setMaxStatementsInFlight(int maxStatementsInFlight) {
+    if (maxStatementsInFlight < 1) {
+      throw new IllegalArgumentException("maxStatementsInFlight must be positive");
+    }
+    this.maxStatementsInFlight = maxStatementsInFlight;
+    return this;
+  }
+
+  public int getDataBatchSize() {
+    return dataBatchSize;
+  }
+
+  /**
+   * CSV data files, e.g. {@code V5__countries.csv}, are loaded into their table with batched prepared inserts
+   * of this many rows each.
+   */
+  public MigxOptions setDataBatchSize(int dataBatchSize) {
+    if (dataBatchSize < 1) {
+      throw new IllegalArgumentException("dataBatchSize must be positive");
+    }
+    this.dataBatchSize = dataBatchSize;
+    return this;
+  }
+
+  public String getManifestPath() {
+    return manifestPath;
+  }
+
+  /**
+   * If a manifest exists at this classpath location, the migrations of the locations it lists are taken from it
+   * instead of hashing them. Every location is still listed, a location whose scripts differ from the ones in
+   * the manifest, e.g. because the manifest belongs to another jar, is hashed as well. Use a path that is unique
+   * to the application, as another jar may contain a manifest at the same path. {@code null} disables the manifest.
+   */
+  public MigxOptions setManifestPath(String manifestPath) {
+    this.manifestPath = manifestPath;
+    return this;
+  }
+
+  public int getPrefetchWindow() {
+    return prefetchWindow;
+  }
+
+  /**
+   * While a script is executed, the contents of this many following scripts are read into memory,
+   * so that reading them overlaps with database work. {@code 0} disables prefetching.
+   */
+  public MigxOptions setPrefetchWindow(int prefetchWindow) {
+    if (prefetchWindow < 0) {
+      throw new IllegalArgumentException("prefetchWindow must not be negative");
+    }
+    this.prefetchWindow = prefetchWindow;
+    return this;
+  }
+
+  public long getPrefetchMaxBytes() {
+    return prefetchMaxBytes;
+  }
+
+  /**
+   * Limits the memory used by prefetched scripts. Scripts that don't fit are read when they are executed.
+   */
+  public MigxOptions setPrefetchMaxBytes(long prefetchMaxBytes) {
+    if (prefetchMaxBytes < 0) {
+      throw new IllegalArgumentException("prefetchMaxBytes must not be negative");
+    }
+    this.prefetchMaxBytes = prefetchMaxBytes;
+    return this;
+  }
+
+  public int getRepeatableConcurrency() {
+    return repeatableConcurrency;
+  }
+
+  /**
+   * Runs pending repeatable migrations on up to this many connections at once, after all versioned
+   * migrations. A script can declare other repeatable scripts it depends on in its leading comments,
+   * e.g. {@code -- migx:depends-on R__functions.sql}, and only starts after they succeeded.
+   * History entries are still written in migration order. The pool needs to allow this many connections.
+   */
+  public MigxOptions setRepeatableConcurrency(int repeatableConcurrency) {
+    if (repeatableConcurrency < 1) {
+      throw new IllegalArgumentException("repeatableConcurrency must be positive");
+    }
+    this.repeatableConcurrency = repeatableConcurrency;
+    return this;
+  }
+
+  public long getValidationCacheTtl() {
+    return validationCacheTtl;
+  }
+
+  /**
+   * Time in milliseconds a validation result is reused for, as long as the highest installed rank in the
+   * schema history didn't change. {@code 0} disables caching.
+   */
+  public MigxOptions setValidationCacheTtl(long validationCacheTtl) {
+    if (validationCacheTtl < 0) {
+      throw new IllegalArgumentException("validationCacheTtl must not be negative");
+    }
+    this.validationCacheTtl = validationCacheTtl;
+    return this;
+  }
+
+  public int getTargetConcurrency() {
+    return targetConcurrency;
+  }
+
+  /**
+   * Number of targets of a {@link MultiMigx} that are migrated at once. Each of them uses at least one
+   * connection, targets sharing a pool need a pool that allows this many connections.
+   */
+  public MigxOptions setTargetConcurrency(int targetConcurrency) {
+    if (targetConcurrency < 1) {
+      throw new IllegalArgumentException("targetConcurrency must be positive");
+    }
+    this.targetConcurrency = targetConcurrency;
+    return this;
+  }
+
+  public LockStrategy getLockStrategy() {
+    return lockStrategy;
+  }
+
+  /**
+   * With {@link LockStrategy#FOLLOW}, instances that start together let the one holding the lock migrate
+   * and only verify its result, instead of reading the whole schema history once it's their turn.
+   */
+  public MigxOptions setLockStrategy(LockStrategy lockStrategy) {
+    if (lockStrategy == null) {
+      throw new IllegalArgumentException("lockStrategy must not be null");
+    }
+    this.lockStrategy = lockStrategy;
+    return this;
+  }
+
+  public long getLockWaitTimeout() {
+    return lockWaitTimeout;
+  }
+
+  /**
+   * Time in milliseconds to wait for another instance to release the migration lock before failing.
+   * {@code 0} fails right away if the lock is held.
+   */
+  public MigxOptions setLockWaitTimeout(long lockWaitTimeout) {
+    if (lockWaitTimeout < 0) {
+      throw new IllegalArgumentException("lockWaitTimeout must not be negative");
+    }
+    this.lockWaitTimeout = lockWaitTimeout;
+    return this;
+  }
+
+  public long getLockRetryInterval() {
+    return lockRetryInterval;
+  }
+
+  /**
+   * Time in milliseconds before the lock is tried again the first time. It doubles with every retry up to
+   * {@link #getLockMaxRetryInterval()}, and every retry waits a random time between half of it and all of it.
+   */
+  public MigxOptions setLockRetryInterval(long lockRetryInterval) {
+    if (lockRetryInterval < 1) {
+      throw new IllegalArgumentException("lockRetryInterval must be positive");
+    }
+    this.lockRetryInterval = lockRetryInterval;
+    return this;
+  }
+
+  public long getLockMaxRetryInterval() {
+    return lockMaxRetryInterval;
+  }
+
+  /**
+   * Upper bound in milliseconds for the time between retries to acquire the lock, which also bounds how long
+   * an instance keeps waiting after the lock has been released.
+   */
+  public MigxOptions setLockMaxRetryInterval(long lockMaxRetryInterval) {
+    if (lockMaxRetryInterval < 1) {
+      throw new IllegalArgumentException("lockMaxRetryInterval must be positive");
+    }
+    this.lockMaxRetryInterval = lockMaxRetryInterval;
+    return this;
+  }
+
+  public MigxListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Receives the timings of every phase of a run and counts of the bytes read and database round trips.
+   * {@link MigxMetrics} accumulates them cheaply enough to stay enabled in production.
+   */
+  public MigxOptions setListener(MigxListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener must not be null");
+    }
+    this.listener = listener;
+    return this;
+  }
+}
@@ -0,0 +1,80 @@
+package co.selim.migx.core;
+
+import co.selim.migx.core.impl.MultiPoolMigx;
+import co.selim.migx.core.impl.runner.MigrationRunner;
+import co.selim.migx.core.output.TargetSummary;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Pool;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static co.selim.migx.core.impl.util.Pools.identify;
+
+/**
+ * Migrates many targets, e.g. one schema per tenant, with the same migrations. The scripts are resolved and
+ * checksummed once and up to {@link MigxOptions#getTargetConcurrency()} targets are migrated at once.
+ */
+public interface MultiMigx {
+
+  /**
+   * Migrates every target, a failing target doesn't stop the others. Never fails because of a single target.
+   *
+   * @return a summary per target, in the order the targets were given
+   */
+  Future<List<TargetSummary>> migrate();
+
+  static MultiMigx forSchemas(Vertx vertx, Pool pool, List<String> schemas) {
+    return forSchemas(vertx, pool, schemas, List.of("db/migration"));
+  }
+
+  static MultiMigx forSchemas(Vertx vertx, Pool pool, List<String> schemas, List<String> migrationPath) {
+    return forSchemas(vertx, pool, schemas, migrationPath, new MigxOptions());
+  }
+
+  /**
+   * Every schema has its own schema history and lock. Connections are switched to a schema while they
+   * migrate it and switched back before they are returned to the pool.
+   */
+  static MultiMigx forSchemas(
+    Vertx vertx,
+    Pool pool,
+    List<String> schemas,
+    List<String> migrationPath,
+    MigxOptions options
+  ) {
+    MigxOptions copy = new MigxOptions(options);
+    List<MultiPoolMigx.Target> targets = schemas.stream()
+      .distinct()
+      .map(schema -> new MultiPoolMigx.Target(
+        schema,
+        pool,
+        schema,
+        MigrationRunner.create(vertx, identify(pool), copy, MigrationRunner.DEFAULT_LOCK_NAME + "." + schema)
+      ))
+      .toList();
+    return new MultiPoolMigx(vertx, targets, migrationPath, copy);
+  }
+
+  static MultiMigx forPools(Vertx vertx, Map<String, Pool> pools, List<String> migrationPath) {
+    return forPools(vertx, pools, migrationPath, new MigxOptions());
+  }
+
+  /**
+   * @param pools the pool of every target by its name, e.g. one per tenant database
+   */
+  static MultiMigx forPools(Vertx vertx, Map<String, Pool> pools, List<String> migrationPath, MigxOptions options) {
+    MigxOptions copy = new MigxOptions(options);
+    List<MultiPoolMigx.Target> targets = new LinkedHashMap<>(pools).entrySet().stream()
+      .map(target -> new MultiPoolMigx.Target(
+        target.getKey(),
+        target.getValue(),
+        null,
+        MigrationRunner.create(vertx, identify(target.getValue()), copy, MigrationRunner.DEFAULT_LOCK_NAME)
+      ))
+      .toList();
+    return new MultiPoolMigx(vertx, targets, migrationPath, copy);
+  }
+}
@@ -0,0 +1,10 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.output.MigrationOutput;
+
+public record AppliedMigration(
+  int installedRank,
+  SqlMigrationScript script,
+  MigrationOutput output
+) {
+}
@@ -0,0 +1,74 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A classpath resource that is resolved when it is read. Resources in directories are read like files,
+ * resources in jars are streamed straight out of the jar instead of being extracted to the file cache.
+ */
+public class ClasspathScriptContent implements ScriptContent {
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private final Vertx vertx;
+  private final ClassLoader classLoader;
+  private final String path;
+
+  public ClasspathScriptContent(Vertx vertx, ClassLoader classLoader, String path) {
+    this.vertx = vertx;
+    this.classLoader = classLoader;
+    this.path = path;
+  }
+
+  @Override
+  public Future<Void> read(Function<Buffer, Future<Void>> chunkHandler) {
+    return vertx.executeBlocking(this::resolve)
+      .compose(content -> content.read(chunkHandler));
+  }
+
+  private ScriptContent resolve() throws Exception {
+    URL resource = classLoader.getResource(path);
+    if (resource == null) {
+      throw new FileNotFoundException("Classpath resource not found: " + path);
+    }
+    if (resource.getProtocol().equals("file")) {
+      return new FileScriptContent(vertx, Path.of(resource.toURI()).toString());
+    }
+    return chunkHandler -> vertx.executeBlocking(() -> open(resource))
+      .compose(input -> readChunks(input, chunkHandler)
+        .eventually(() -> vertx.executeBlocking(() -> {
+          input.close();
+          return null;
+        }))
+      );
+  }
+
+  private static InputStream open(URL resource) throws Exception {
+    URLConnection connection = resource.openConnection();
+    // a cached jar file would stay open after the stream has been closed
+    connection.setUseCaches(false);
+    return connection.getInputStream();
+  }
+
+  private Future<Void> readChunks(InputStream input, Function<Buffer, Future<Void>> chunkHandler) {
+    return vertx.executeBlocking(() -> {
+        byte[] bytes = new byte[READ_BUFFER_SIZE];
+        int read = input.readNBytes(bytes, 0, bytes.length);
+        return read == 0 ? null : Buffer.buffer(read == bytes.length ? bytes : Arrays.copyOf(bytes, read));
+      })
+      .compose(chunk -> chunk == null ?
+        Future.succeededFuture() :
+        chunkHandler.apply(chunk).compose(x -> readChunks(input, chunkHandler))
+      );
+  }
+}
@@ -0,0 +1,55 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+
+import java.util.function.Function;
+
+public class FileScriptContent implements ScriptContent {
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+  private static final OpenOptions READ_ONLY = new OpenOptions()
+    .setRead(true)
+    .setWrite(false)
+    .setCreate(false);
+
+  private final Vertx vertx;
+  private final String path;
+
+  public FileScriptContent(Vertx vertx, String path) {
+    this.vertx = vertx;
+    this.path = path;
+  }
+
+  @Override
+  public Future<Void> read(Function<Buffer, Future<Void>> chunkHandler) {
+    return vertx.fileSystem()
+      .open(path, READ_ONLY)
+      .compose(file -> readChunks(file, chunkHandler).eventually(file::close));
+  }
+
+  private Future<Void> readChunks(AsyncFile file, Function<Buffer, Future<Void>> chunkHandler) {
+    Promise<Void> promise = Promise.promise();
+    file.setReadBufferSize(READ_BUFFER_SIZE);
+    file.exceptionHandler(promise::tryFail);
+    file.endHandler(x -> promise.tryComplete());
+    file.handler(chunk -> {
+      file.pause();
+      Future<Void> handled;
+      try {
+        handled = chunkHandler.apply(chunk);
+      } catch (RuntimeException e) {
+        promise.tryFail(e);
+        return;
+      }
+      handled
+        .onSuccess(x -> file.resume())
+        .onFailure(promise::tryFail);
+    });
+    return promise.future();
+  }
+}
@@ -0,0 +1,137 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.output.ChecksumMismatch;
+import co.selim.migx.core.output.ChecksumMismatchBuilder;
+import co.selim.migx.core.output.MigrationPlan;
+import co.selim.migx.core.output.MigrationPlanBuilder;
+import co.selim.migx.core.output.MigrationValidation;
+import co.selim.migx.core.output.MigrationValidationBuilder;
+import co.selim.migx.core.output.PendingMigration;
+import co.selim.migx.core.output.PendingMigrationBuilder;
+import co.selim.migx.core.output.UnresolvedMigration;
+import co.selim.migx.core.output.UnresolvedMigrationBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Compares the local migrations with the schema history, without modifying either of them.
+ */
+final class HistoryComparison {
+
+  private HistoryComparison() {
+  }
+
+  static MigrationPlan plan(List<SqlMigrationScript> scripts, SchemaHistory schemaHistory) {
+    List<PendingMigration> pendingVersioned = new ArrayList<>();
+    List<PendingMigration> pendingRepeatable = new ArrayList<>();
+    List<ChecksumMismatch> checksumMismatches = new ArrayList<>();
+    // only the selected baseline runs, instead of the versioned migrations it covers
+    SqlMigrationScript baseline = schemaHistory.selectBaseline(scripts);
+    for (SqlMigrationScript script : scripts) {
+      if (script == baseline) {
+        pendingVersioned.add(pendingMigration(script));
+        continue;
+      }
+      if (schemaHistory.isCoveredByBaseline(script) || isCoveredBy(baseline, script)) {
+        continue;
+      }
+      Integer appliedChecksum = schemaHistory.appliedChecksum(script);
+      boolean applied = schemaHistory.contains(script);
+      boolean changed = applied && !Objects.equals(appliedChecksum, script.checksum());
+      if (script.category() != SqlMigrationScript.Category.REPEATABLE && changed) {
+        checksumMismatches.add(checksumMismatch(script, appliedChecksum));
+      } else if (script.category() != SqlMigrationScript.Category.BASELINE && (!applied || changed)) {
+        List<PendingMigration> pending = script.category() == SqlMigrationScript.Category.VERSIONED ?
+          pendingVersioned :
+          pendingRepeatable;
+        pending.add(pendingMigration(script));
+      }
+    }
+    return MigrationPlanBuilder.builder()
+      .pendingVersioned(pendingVersioned)
+      .pendingRepeatable(pendingRepeatable)
+      .checksumMismatches(checksumMismatches)
+      .build();
+  }
+
+  private static boolean isCoveredBy(SqlMigrationScript baseline, SqlMigrationScript script) {
+    return baseline != null &&
+      script.category() == SqlMigrationScript.Category.VERSIONED &&
+      MigrationVersion.parse(script.version()).compareTo(MigrationVersion.parse(baseline.version())) <= 0;
+  }
+
+  static MigrationValidation validate(List<SqlMigrationScript> scripts, SchemaHistory schemaHistory) {
+    List<PendingMigration> missing = new ArrayList<>();
+    List<ChecksumMismatch> mismatched = new ArrayList<>();
+    Set<String> versions = new HashSet<>();
+    Set<String> otherScripts = new HashSet<>();
+    for (SqlMigrationScript script : scripts) {
+      switch (script.category()) {
+        case VERSIONED -> versions.add(script.version());
+        case REPEATABLE, BASELINE -> otherScripts.add(script.filename());
+      }
+      Integer appliedChecksum = schemaHistory.appliedChecksum(script);
+      if (!schemaHistory.contains(script)) {
+        // unapplied baselines and the versions an applied baseline covers aren't expected in the history
+        if (script.category() != SqlMigrationScript.Category.BASELINE && !schemaHistory.isCoveredByBaseline(script)) {
+          missing.add(pendingMigration(script));
+        }
+      } else if (!Objects.equals(appliedChecksum, script.checksum())) {
+        mismatched.add(checksumMismatch(script, appliedChecksum));
+      }
+    }
+
+    List<UnresolvedMigration> extra = new ArrayList<>();
+    Map<String, Integer> checksumsByScript = schemaHistory.checksumsByScript();
+    for (Map.Entry<String, String> applied : schemaHistory.scriptsByVersion().entrySet()) {
+      if (!versions.contains(applied.getKey())) {
+        extra.add(unresolvedMigration(applied.getKey(), applied.getValue(), checksumsByScript.get(applied.getValue())));
+      }
+    }
+    Set<String> versionedScripts = new HashSet<>(schemaHistory.scriptsByVersion().values());
+    for (Map.Entry<String, Integer> applied : checksumsByScript.entrySet()) {
+      if (!versionedScripts.contains(applied.getKey()) && !otherScripts.contains(applied.getKey())) {
+        extra.add(unresolvedMigration(null, applied.getKey(), applied.getValue()));
+      }
+    }
+
+    return MigrationValidationBuilder.builder()
+      .missing(missing)
+      .extra(extra)
+      .mismatched(mismatched)
+      .build();
+  }
+
+  private static PendingMigration pendingMigration(SqlMigrationScript script) {
+    return PendingMigrationBuilder.builder()
+      .category(script.category().toString())
+      .version(script.version())
+      .description(script.description())
+      .filepath(script.filepath())
+      .checksum(script.checksum())
+      .build();
+  }
+
+  private static ChecksumMismatch checksumMismatch(SqlMigrationScript script, Integer appliedChecksum) {
+    return ChecksumMismatchBuilder.builder()
+      .version(script.version())
+      .description(script.description())
+      .filepath(script.filepath())
+      .appliedChecksum(appliedChecksum)
+      .resolvedChecksum(script.checksum())
+      .build();
+  }
+
+  private static UnresolvedMigration unresolvedMigration(String version, String script, Integer checksum) {
+    return UnresolvedMigrationBuilder.builder()
+      .version(version)
+      .script(script)
+      .checksum(checksum)
+      .build();
+  }
+}
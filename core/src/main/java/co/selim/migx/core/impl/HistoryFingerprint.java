@@ -0,0 +1,88 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.sqlclient.Row;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order independent summary of the applied migrations, so that the up-to-date check
+ * only needs a single aggregate query. Every versioned or baseline migration and the latest
+ * entry of every repeatable migration contribute their checksum and a hash of their
+ * version or script name together with the checksum, so that a checksum is tied to its
+ * migration. The hash is the first 4 bytes of the md5 of {@code <name>:<checksum>} as an
+ * unsigned integer, which Postgres and MySQL can both compute on their side.
+ */
+public record HistoryFingerprint(
+  long migrations,
+  long checksums,
+  long names
+) {
+
+  public static HistoryFingerprint from(Row row) {
+    return new HistoryFingerprint(
+      row.getLong("migration_count"),
+      row.getLong("checksum_sum"),
+      row.getLong("name_hash_sum")
+    );
+  }
+
+  /**
+   * The fingerprints of the schema histories that are up-to-date with the scripts, one without a baseline and one
+   * per baseline, which takes the place of the versioned migrations it covers.
+   */
+  public static List<HistoryFingerprint> upToDate(List<SqlMigrationScript> scripts) {
+    List<SqlMigrationScript> withoutBaselines = scripts.stream()
+      .filter(script -> script.category() != SqlMigrationScript.Category.BASELINE)
+      .toList();
+    List<HistoryFingerprint> fingerprints = new ArrayList<>();
+    fingerprints.add(of(withoutBaselines));
+    for (SqlMigrationScript baseline : scripts) {
+      if (baseline.category() != SqlMigrationScript.Category.BASELINE) {
+        continue;
+      }
+      MigrationVersion baselineVersion = MigrationVersion.parse(baseline.version());
+      List<SqlMigrationScript> baselined = new ArrayList<>();
+      baselined.add(baseline);
+      for (SqlMigrationScript script : withoutBaselines) {
+        if (script.category() != SqlMigrationScript.Category.VERSIONED ||
+          MigrationVersion.parse(script.version()).compareTo(baselineVersion) > 0) {
+          baselined.add(script);
+        }
+      }
+      fingerprints.add(of(baselined));
+    }
+    return fingerprints;
+  }
+
+  public static HistoryFingerprint of(List<SqlMigrationScript> scripts) {
+    MessageDigest md5 = md5();
+    long checksums = 0;
+    long names = 0;
+    for (SqlMigrationScript script : scripts) {
+      String name = switch (script.category()) {
+        case VERSIONED, BASELINE -> script.version();
+        case REPEATABLE -> script.filename();
+      };
+      checksums += script.checksum();
+      names += nameHash(md5, name + ":" + script.checksum());
+    }
+    return new HistoryFingerprint(scripts.size(), checksums, names);
+  }
+
+  private static long nameHash(MessageDigest md5, String name) {
+    byte[] digest = md5.digest(name.getBytes(StandardCharsets.UTF_8));
+    return ((digest[0] & 0xFFL) << 24) | ((digest[1] & 0xFFL) << 16) | ((digest[2] & 0xFFL) << 8) | (digest[3] & 0xFFL);
+  }
+
+  private static MessageDigest md5() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.MigxListener;
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.runner.MigrationRunner;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static co.selim.migx.core.impl.util.Clock.millisSince;
+import static co.selim.migx.core.impl.util.Clock.nanoTime;
+import static co.selim.migx.core.impl.util.Clock.nanosSince;
+import static co.selim.migx.core.impl.util.Clock.now;
+
+/**
+ * Acquires the migration lock, retrying with exponential backoff until the lock wait timeout elapsed.
+ * Retries are jittered, so that instances which started together don't keep polling together.
+ */
+final class LockWaiter {
+
+  private LockWaiter() {
+  }
+
+  /**
+   * @return whether the lock was held by another instance at first
+   */
+  static Future<Boolean> acquire(Vertx vertx, MigrationRunner migrationRunner, SqlConnection connection, MigxOptions options) {
+    long startNanos = nanoTime();
+    return acquire(vertx, migrationRunner, connection, options, now(), options.getLockRetryInterval(), false)
+      .onComplete(x -> options.getListener().phaseCompleted(MigxListener.Phase.LOCK_WAIT, null, nanosSince(startNanos)));
+  }
+
+  private static Future<Boolean> acquire(
+    Vertx vertx,
+    MigrationRunner migrationRunner,
+    SqlConnection connection,
+    MigxOptions options,
+    long startedAt,
+    long retryInterval,
+    boolean waited
+  ) {
+    return migrationRunner.tryLock(connection)
+      .compose(locked -> {
+        if (locked) {
+          return Future.succeededFuture(waited);
+        }
+        long remaining = options.getLockWaitTimeout() - millisSince(startedAt);
+        if (remaining <= 0) {
+          return Future.failedFuture("Timed out while waiting to acquire lock");
+        }
+        long delay = Math.min(remaining, ThreadLocalRandom.current().nextLong(retryInterval / 2, retryInterval + 1));
+        long nextRetryInterval = Math.min(retryInterval * 2, options.getLockMaxRetryInterval());
+        Promise<Boolean> promise = Promise.promise();
+        vertx.setTimer(Math.max(1, delay), timerId ->
+          acquire(vertx, migrationRunner, connection, options, startedAt, nextRetryInterval, true).onComplete(promise)
+        );
+        return promise.future();
+      });
+  }
+}
@@ -0,0 +1,41 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.MigxListener;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.function.Function;
+
+import static co.selim.migx.core.impl.util.Clock.nanoTime;
+import static co.selim.migx.core.impl.util.Clock.nanosSince;
+
+/**
+ * Reports the time spent waiting for chunks and the number of bytes read once per read. The time the chunk
+ * handler takes, e.g. to execute statements, isn't included.
+ */
+record MeasuredScriptContent(ScriptContent content, String script, MigxListener listener) implements ScriptContent {
+
+  @Override
+  public Future<Void> read(Function<Buffer, Future<Void>> chunkHandler) {
+    Measurement measurement = new Measurement();
+    measurement.requestedAt = nanoTime();
+    return content
+      .read(chunk -> {
+        measurement.nanos += nanosSince(measurement.requestedAt);
+        measurement.bytes += chunk.length();
+        return chunkHandler.apply(chunk)
+          .onSuccess(x -> measurement.requestedAt = nanoTime());
+      })
+      .onComplete(result -> {
+        measurement.nanos += nanosSince(measurement.requestedAt);
+        listener.phaseCompleted(MigxListener.Phase.READ, script, measurement.nanos);
+        listener.bytesRead(script, measurement.bytes);
+      });
+  }
+
+  private static final class Measurement {
+    private long requestedAt;
+    private long nanos;
+    private long bytes;
+  }
+}
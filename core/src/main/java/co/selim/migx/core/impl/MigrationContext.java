@@ -0,0 +1,107 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.impl.runner.MigrationRunner;
+import co.selim.migx.core.impl.runner.RoundTripCounter;
+import co.selim.migx.core.output.MigrationEventType;
+import co.selim.migx.core.output.MigrationOutput;
+import co.selim.migx.core.output.RoundTrips;
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MigrationContext {
+
+  private final Pool pool;
+  private final String schema;
+  private final MigrationRunner migrationRunner;
+  private final MigrationEvents events;
+  private final Map<SqlConnection, String> previousSchemas = new IdentityHashMap<>();
+  private final RoundTripCounter roundTrips = new RoundTripCounter();
+  private int connectionsUsed;
+
+  public MigrationContext(Pool pool) {
+    this(pool, null, null);
+  }
+
+  /**
+   * Connections are switched to the given schema while they are used, unless it is {@code null}.
+   */
+  public MigrationContext(Pool pool, String schema, MigrationRunner migrationRunner) {
+    this(pool, schema, migrationRunner, MigrationEvents.NONE);
+  }
+
+  MigrationContext(Pool pool, String schema, MigrationRunner migrationRunner, MigrationEvents events) {
+    this.pool = pool;
+    this.schema = schema;
+    this.migrationRunner = migrationRunner;
+    this.events = events;
+  }
+
+  public Future<SqlConnection> getConnection() {
+    Future<SqlConnection> connection = pool.getConnection()
+      .onSuccess(acquired -> {
+        connectionsUsed++;
+        if (migrationRunner != null) {
+          migrationRunner.startCounting(acquired, roundTrips);
+        }
+      });
+    if (schema == null) {
+      return connection;
+    }
+    return connection.compose(acquired -> migrationRunner.useSchema(acquired, schema)
+      .transform(previousSchema -> {
+        if (previousSchema.failed()) {
+          return close(acquired).transform(x -> Future.failedFuture(previousSchema.cause()));
+        }
+        previousSchemas.put(acquired, previousSchema.result());
+        return Future.succeededFuture(acquired);
+      })
+    );
+  }
+
+  /**
+   * Returns the connection to the pool, after restoring the schema it used before.
+   */
+  public Future<Void> release(SqlConnection connection) {
+    if (!previousSchemas.containsKey(connection)) {
+      return close(connection);
+    }
+    String previousSchema = previousSchemas.remove(connection);
+    return migrationRunner.restoreSchema(connection, previousSchema)
+      .eventually(() -> close(connection));
+  }
+
+  private Future<Void> close(SqlConnection connection) {
+    if (migrationRunner != null) {
+      migrationRunner.stopCounting(connection);
+    }
+    return connection.close();
+  }
+
+  /**
+   * Completes once the receiver of the events is ready for more.
+   */
+  Future<Void> emit(MigrationEventType type, SqlMigrationScript script, MigrationOutput output) {
+    return events.emit(type, script, output);
+  }
+
+  Future<Void> emit(MigrationEventType type, List<SqlMigrationScript> scripts) {
+    Future<Void> chain = Future.succeededFuture();
+    for (SqlMigrationScript script : scripts) {
+      chain = chain.compose(x -> emit(type, script, null));
+    }
+    return chain;
+  }
+
+  public int connectionsUsed() {
+    return connectionsUsed;
+  }
+
+  public RoundTrips roundTrips() {
+    return roundTrips.toRoundTrips();
+  }
+}
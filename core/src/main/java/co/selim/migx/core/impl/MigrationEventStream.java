@@ -0,0 +1,160 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.output.MigrationEvent;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Buffers events until they are fetched. Emitting completes once fewer than {@link #HIGH_WATER_MARK} events are
+ * buffered, so that a paused stream stops the run at the next script. Handlers are called on the context the
+ * stream was created on.
+ */
+class MigrationEventStream implements ReadStream<MigrationEvent>, MigrationEvents {
+
+  static final int HIGH_WATER_MARK = 16;
+
+  private final Context context;
+  private final Queue<MigrationEvent> queued = new ArrayDeque<>();
+  private Handler<MigrationEvent> handler;
+  private Handler<Throwable> exceptionHandler;
+  private Handler<Void> endHandler;
+  private Promise<Void> writable;
+  private long demand = Long.MAX_VALUE;
+  private boolean ended;
+  private Throwable failure;
+  private boolean terminated;
+  private boolean draining;
+
+  MigrationEventStream(Context context) {
+    this.context = context;
+  }
+
+  @Override
+  public Future<Void> emit(MigrationEvent event) {
+    Promise<Void> promise = Promise.promise();
+    onContext(() -> {
+      queued.add(event);
+      drain();
+      if (queued.size() < HIGH_WATER_MARK) {
+        promise.complete();
+      } else {
+        if (writable == null) {
+          writable = Promise.promise();
+        }
+        writable.future().onComplete(promise);
+      }
+    });
+    return promise.future();
+  }
+
+  void end() {
+    onContext(() -> {
+      ended = true;
+      drain();
+    });
+  }
+
+  void fail(Throwable cause) {
+    onContext(() -> {
+      failure = cause;
+      drain();
+    });
+  }
+
+  @Override
+  public MigrationEventStream exceptionHandler(Handler<Throwable> handler) {
+    onContext(() -> {
+      exceptionHandler = handler;
+      drain();
+    });
+    return this;
+  }
+
+  @Override
+  public MigrationEventStream handler(Handler<MigrationEvent> handler) {
+    onContext(() -> {
+      this.handler = handler;
+      drain();
+    });
+    return this;
+  }
+
+  @Override
+  public MigrationEventStream pause() {
+    onContext(() -> demand = 0);
+    return this;
+  }
+
+  @Override
+  public MigrationEventStream resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  @Override
+  public MigrationEventStream fetch(long amount) {
+    if (amount < 0) {
+      throw new IllegalArgumentException("amount must not be negative");
+    }
+    onContext(() -> {
+      demand = demand > Long.MAX_VALUE - amount ? Long.MAX_VALUE : demand + amount;
+      drain();
+    });
+    return this;
+  }
+
+  @Override
+  public MigrationEventStream endHandler(Handler<Void> endHandler) {
+    onContext(() -> {
+      this.endHandler = endHandler;
+      drain();
+    });
+    return this;
+  }
+
+  private void onContext(Runnable action) {
+    if (Vertx.currentContext() == context) {
+      action.run();
+    } else {
+      context.runOnContext(x -> action.run());
+    }
+  }
+
+  private void drain() {
+    // handlers can fetch more events, which must not recurse into drain
+    if (draining) {
+      return;
+    }
+    draining = true;
+    try {
+      while (handler != null && demand > 0 && !queued.isEmpty()) {
+        if (demand != Long.MAX_VALUE) {
+          demand--;
+        }
+        handler.handle(queued.poll());
+      }
+    } finally {
+      draining = false;
+    }
+    if (writable != null && queued.size() < HIGH_WATER_MARK) {
+      Promise<Void> ready = writable;
+      writable = null;
+      ready.complete();
+    }
+    if (!terminated && queued.isEmpty()) {
+      if (failure != null && exceptionHandler != null) {
+        terminated = true;
+        exceptionHandler.handle(failure);
+      } else if (failure == null && ended && endHandler != null) {
+        terminated = true;
+        endHandler.handle(null);
+      }
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.output.MigrationEvent;
+import co.selim.migx.core.output.MigrationEventBuilder;
+import co.selim.migx.core.output.MigrationEventType;
+import co.selim.migx.core.output.MigrationOutput;
+import io.vertx.core.Future;
+
+/**
+ * Receives the progress of a run. The returned future completes once the receiver is ready for more events,
+ * runs that wait for it before starting the next script are slowed down to the pace of the receiver.
+ */
+interface MigrationEvents {
+
+  MigrationEvents NONE = event -> Future.succeededFuture();
+
+  Future<Void> emit(MigrationEvent event);
+
+  default Future<Void> emit(MigrationEventType type, SqlMigrationScript script, MigrationOutput output) {
+    if (this == NONE) {
+      return Future.succeededFuture();
+    }
+    return emit(MigrationEventBuilder.builder()
+      .type(type)
+      .filepath(script == null ? null : script.filepath())
+      .output(output)
+      .build()
+    );
+  }
+}
@@ -0,0 +1,12 @@
+package co.selim.migx.core.impl;
+
+/**
+ * @param path   the path the content is read from
+ * @param script the path relative to its location, which is recorded in the schema history like Flyway does
+ */
+public record MigrationFile(
+  String path,
+  String script,
+  ScriptContent content
+) {
+}
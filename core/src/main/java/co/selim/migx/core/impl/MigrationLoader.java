@@ -0,0 +1,232 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.JavaMigration;
+import co.selim.migx.core.MigxListener;
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.util.Checksums;
+import co.selim.migx.core.impl.util.MigrationOrder;
+import co.selim.migx.core.impl.util.Paths;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static co.selim.migx.core.impl.util.Clock.nanoTime;
+import static co.selim.migx.core.impl.util.Clock.nanosSince;
+
+/**
+ * Resolves the migration scripts of the configured locations in migration order, together with their checksums.
+ * Java migrations are ordered together with them.
+ */
+class MigrationLoader {
+
+  private static final int CHECKSUMS_IN_FLIGHT = 4;
+
+  private final List<String> migrationPaths;
+  private final List<JavaMigration> javaMigrations;
+  private final MigxOptions options;
+  private final MigrationSource migrationSource;
+
+  MigrationLoader(Vertx vertx, List<String> migrationPaths, MigxOptions options) {
+    this(vertx, migrationPaths, List.of(), options);
+  }
+
+  MigrationLoader(Vertx vertx, List<String> migrationPaths, List<JavaMigration> javaMigrations, MigxOptions options) {
+    this.migrationPaths = migrationPaths;
+    this.javaMigrations = javaMigrations;
+    this.options = options;
+    this.migrationSource = new MigrationSource(vertx);
+  }
+
+  Future<List<SqlMigrationScript>> load() {
+    return loadManifest()
+      .compose(this::loadMigrationScripts)
+      .map(this::addJavaMigrations);
+  }
+
+  private List<SqlMigrationScript> addJavaMigrations(List<SqlMigrationScript> scripts) {
+    if (javaMigrations.isEmpty()) {
+      return scripts;
+    }
+    List<SqlMigrationScript> allScripts = new ArrayList<>(scripts.size() + javaMigrations.size());
+    allScripts.addAll(scripts);
+    // repeatable migrations are identified by their name, which Java migrations derive from their class
+    Set<String> repeatables = new HashSet<>();
+    for (SqlMigrationScript script : scripts) {
+      if (script.category() == SqlMigrationScript.Category.REPEATABLE) {
+        repeatables.add(script.filename());
+      }
+    }
+    for (JavaMigration migration : javaMigrations) {
+      SqlMigrationScript script = SqlMigrationScript.of(migration);
+      if (script.category() == SqlMigrationScript.Category.REPEATABLE && !repeatables.add(script.filename())) {
+        throw new IllegalStateException("Found more than one repeatable migration named " + script.filename());
+      }
+      allScripts.add(script);
+    }
+    return MigrationOrder.sortScripts(allScripts);
+  }
+
+  private <T> Future<T> scanning(Supplier<Future<T>> scan) {
+    long startedAt = nanoTime();
+    return scan.get()
+      .onComplete(x -> options.getListener().phaseCompleted(MigxListener.Phase.SCAN, null, nanosSince(startedAt)));
+  }
+
+  private Future<MigrationManifest> loadManifest() {
+    String manifestPath = options.getManifestPath();
+    if (manifestPath == null) {
+      return Future.succeededFuture(new MigrationManifest(Set.of(), List.of()));
+    }
+    return scanning(() -> migrationSource.resourceExists(manifestPath)
+      .compose(exists -> exists ?
+        migrationSource.resource(manifestPath).readFully().map(buffer -> MigrationManifest.parse(buffer.toString())) :
+        Future.succeededFuture(new MigrationManifest(Set.of(), List.of()))
+      )
+    );
+  }
+
+  // scripts of locations whose listing matches the manifest aren't hashed
+  private Future<List<SqlMigrationScript>> loadMigrationScripts(MigrationManifest manifest) {
+    Map<String, MigrationManifest.Entry> manifestEntries = new HashMap<>();
+    for (MigrationManifest.Entry entry : manifest.entries()) {
+      manifestEntries.put(entry.path(), entry);
+    }
+    List<Future<List<MigrationFile>>> migrationFiles = migrationPaths.stream()
+      .distinct()
+      .map(path -> scanning(() -> migrationSource.scan(path))
+        .onSuccess(files -> {
+          if (manifest.locations().contains(path) && !matchesManifest(manifest, path, files)) {
+            files.forEach(file -> manifestEntries.remove(file.path()));
+          }
+        })
+      )
+      .toList();
+
+    return Future.all(migrationFiles)
+      .compose(files -> {
+        // repeatable migrations keep the order in which they were listed
+        Map<String, MigrationFile> filesByPath = new LinkedHashMap<>();
+        for (List<MigrationFile> locationFiles : files.<List<MigrationFile>>list()) {
+          for (MigrationFile file : locationFiles) {
+            filesByPath.putIfAbsent(file.path(), file);
+          }
+        }
+        List<String> allMigrations = MigrationOrder.sort(new ArrayList<>(filesByPath.keySet()));
+
+        SqlMigrationScript[] scripts = new SqlMigrationScript[allMigrations.size()];
+        Queue<Integer> unhashed = new ArrayDeque<>();
+        for (int i = 0; i < scripts.length; i++) {
+          String path = allMigrations.get(i);
+          MigrationManifest.Entry entry = manifestEntries.get(path);
+          if (entry != null) {
+            scripts[i] = fromManifest(entry, filesByPath.get(path));
+          } else {
+            unhashed.add(i);
+          }
+        }
+        List<Future<Void>> hashing = new ArrayList<>(CHECKSUMS_IN_FLIGHT);
+        for (int i = 0; i < Math.min(CHECKSUMS_IN_FLIGHT, unhashed.size()); i++) {
+          hashing.add(hashNext(unhashed, allMigrations, filesByPath, scripts));
+        }
+        return Future.all(hashing).map(x -> new ArrayList<>(Arrays.asList(scripts)));
+      });
+  }
+
+  // every script that is hashed keeps its file open until it was read completely, so only a few are hashed at once
+  private Future<Void> hashNext(
+    Queue<Integer> unhashed,
+    List<String> paths,
+    Map<String, MigrationFile> filesByPath,
+    SqlMigrationScript[] scripts
+  ) {
+    Integer index = unhashed.poll();
+    if (index == null) {
+      return Future.succeededFuture();
+    }
+    return loadMigrationScript(filesByPath.get(paths.get(index)))
+      .onFailure(x -> unhashed.clear())
+      .compose(script -> {
+        scripts[index] = script;
+        return hashNext(unhashed, paths, filesByPath, scripts);
+      });
+  }
+
+  // a manifest that lists other scripts than the classpath is stale or belongs to another jar
+  private static boolean matchesManifest(MigrationManifest manifest, String location, List<MigrationFile> files) {
+    String prefix = location + "/";
+    Set<String> listed = new HashSet<>();
+    for (MigrationManifest.Entry entry : manifest.entries()) {
+      if (entry.path().startsWith(prefix)) {
+        listed.add(entry.path());
+      }
+    }
+    Set<String> scanned = new HashSet<>();
+    for (MigrationFile file : files) {
+      scanned.add(file.path());
+    }
+    return listed.equals(scanned);
+  }
+
+  private SqlMigrationScript fromManifest(MigrationManifest.Entry entry, MigrationFile file) {
+    return new SqlMigrationScript(
+      entry.path(),
+      file.script(),
+      content(file),
+      entry.description(),
+      entry.category(),
+      entry.version(),
+      entry.checksum()
+    );
+  }
+
+  // only the checksum is kept, the content is streamed again if the script needs to run
+  private Future<SqlMigrationScript> loadMigrationScript(MigrationFile file) {
+    String filename = Paths.getFilename(file.path());
+    ScriptContent content = content(file);
+    return calculateChecksum(file.script(), content)
+      .map(checksum -> new SqlMigrationScript(
+        file.path(),
+        file.script(),
+        content,
+        Paths.getDescriptionFromFilename(filename),
+        SqlMigrationScript.Category.fromChar(Paths.getCategoryFromFilename(filename)),
+        Paths.getVersionFromFilename(filename),
+        checksum
+      ));
+  }
+
+  private Future<Integer> calculateChecksum(String script, ScriptContent content) {
+    Checksums.Calculator calculator = new Checksums.Calculator();
+    long[] checksumNanos = {0};
+    return content
+      .read(chunk -> {
+        long startedAt = nanoTime();
+        calculator.update(chunk);
+        checksumNanos[0] += nanosSince(startedAt);
+        return Future.succeededFuture();
+      })
+      .map(x -> {
+        options.getListener().phaseCompleted(MigxListener.Phase.CHECKSUM, script, checksumNanos[0]);
+        return calculator.checksum();
+      });
+  }
+
+  private ScriptContent content(MigrationFile file) {
+    MigxListener listener = options.getListener();
+    if (listener == MigxListener.NOOP) {
+      return file.content();
+    }
+    return new MeasuredScriptContent(file.content(), file.script(), listener);
+  }
+}
@@ -0,0 +1,126 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.impl.util.Checksums;
+import co.selim.migx.core.impl.util.Paths;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Lists the migrations of classpath locations together with their checksums. It is generated at build
+ * time by running {@link #main(String[])}, so that migrations don't need to be listed and hashed on startup.
+ * <p>
+ * Every line is tab separated, either {@code location <location>} or
+ * {@code migration <path> <category> <version> <description> <checksum>}.
+ */
+public record MigrationManifest(Set<String> locations, List<Entry> entries) {
+
+  private static final String LOCATION = "location";
+  private static final String MIGRATION = "migration";
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  public record Entry(
+    String path,
+    SqlMigrationScript.Category category,
+    String version,
+    String description,
+    int checksum
+  ) {
+  }
+
+  public static MigrationManifest parse(String content) {
+    Set<String> locations = new LinkedHashSet<>();
+    List<Entry> entries = new ArrayList<>();
+    for (String line : content.split("\n")) {
+      if (line.isBlank()) {
+        continue;
+      }
+      String[] fields = line.split("\t", -1);
+      switch (fields[0]) {
+        case LOCATION -> locations.add(fields[1]);
+        case MIGRATION -> entries.add(new Entry(
+          fields[1],
+          SqlMigrationScript.Category.fromChar(fields[2].charAt(0)),
+          fields[3],
+          fields[4],
+          Integer.parseInt(fields[5])
+        ));
+        default -> throw new IllegalArgumentException("Invalid manifest line: " + line);
+      }
+    }
+    return new MigrationManifest(locations, entries);
+  }
+
+  public String format() {
+    StringBuilder manifest = new StringBuilder();
+    for (String location : locations) {
+      manifest.append(LOCATION).append('\t').append(location).append('\n');
+    }
+    for (Entry entry : entries) {
+      manifest.append(MIGRATION)
+        .append('\t').append(entry.path())
+        .append('\t').append(entry.category().name().charAt(0))
+        .append('\t').append(entry.version())
+        .append('\t').append(entry.description())
+        .append('\t').append(entry.checksum())
+        .append('\n');
+    }
+    return manifest.toString();
+  }
+
+  public static MigrationManifest generate(Path resourceRoot, List<String> locations) throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    for (String location : locations) {
+      Path directory = resourceRoot.resolve(location);
+      if (!Files.isDirectory(directory)) {
+        continue;
+      }
+      try (Stream<Path> files = Files.walk(directory)) {
+        for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+          String filename = file.getFileName().toString();
+          entries.add(new Entry(
+            location + "/" + MigrationSource.relativePath(directory, file),
+            SqlMigrationScript.Category.fromChar(Paths.getCategoryFromFilename(filename)),
+            Paths.getVersionFromFilename(filename),
+            Paths.getDescriptionFromFilename(filename),
+            checksum(file)
+          ));
+        }
+      }
+    }
+    return new MigrationManifest(new LinkedHashSet<>(locations), entries);
+  }
+
+  private static int checksum(Path file) throws IOException {
+    Checksums.Calculator calculator = new Checksums.Calculator();
+    byte[] buffer = new byte[READ_BUFFER_SIZE];
+    try (InputStream input = Files.newInputStream(file)) {
+      int read;
+      while ((read = input.read(buffer)) >= 0) {
+        calculator.update(buffer, 0, read);
+      }
+    }
+    return calculator.checksum();
+  }
+
+  /**
+   * Arguments: the resource root directory, the manifest file to write and the migration locations.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      throw new IllegalArgumentException("Usage: MigrationManifest <resource root> <manifest file> <location>...");
+    }
+    List<String> locations = List.of(args).subList(2, args.length);
+    MigrationManifest manifest = generate(Path.of(args[0]), locations);
+    Path output = Path.of(args[1]);
+    Files.createDirectories(output.toAbsolutePath().getParent());
+    Files.writeString(output, manifest.format());
+  }
+}
@@ -0,0 +1,114 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lists the migrations of a location, including the ones in nested directories. Like Vert.x's file system,
+ * a location is first looked up on the file system and then on the classpath. Jars on the classpath are
+ * listed through their central directory, nothing is extracted and script contents are only opened once
+ * they are read.
+ */
+public class MigrationSource {
+
+  private final Vertx vertx;
+  private final ClassLoader classLoader;
+
+  public MigrationSource(Vertx vertx) {
+    this.vertx = vertx;
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    this.classLoader = contextClassLoader != null ? contextClassLoader : MigrationSource.class.getClassLoader();
+  }
+
+  public Future<List<MigrationFile>> scan(String location) {
+    return vertx.executeBlocking(() -> {
+      String normalized = location.endsWith("/") ? location.substring(0, location.length() - 1) : location;
+      Path directory = Path.of(normalized);
+      if (Files.isDirectory(directory)) {
+        List<MigrationFile> files = new ArrayList<>();
+        for (Path file : walk(directory)) {
+          files.add(new MigrationFile(file.toString(), relativePath(directory, file), new FileScriptContent(vertx, file.toString())));
+        }
+        return files;
+      }
+      return scanClasspath(normalized);
+    });
+  }
+
+  public ScriptContent resource(String path) {
+    return new ClasspathScriptContent(vertx, classLoader, path);
+  }
+
+  public Future<Boolean> resourceExists(String path) {
+    return vertx.executeBlocking(() -> classLoader.getResource(path) != null);
+  }
+
+  // the first classpath entry wins if several of them contain the same path
+  private List<MigrationFile> scanClasspath(String location) throws IOException, URISyntaxException {
+    Map<String, MigrationFile> files = new LinkedHashMap<>();
+    Enumeration<URL> roots = classLoader.getResources(location);
+    if (!roots.hasMoreElements()) {
+      throw new IllegalArgumentException("Migration location not found: " + location);
+    }
+    while (roots.hasMoreElements()) {
+      URL root = roots.nextElement();
+      for (String path : list(root, location)) {
+        files.putIfAbsent(path, new MigrationFile(path, path.substring(location.length() + 1), resource(path)));
+      }
+    }
+    return new ArrayList<>(files.values());
+  }
+
+  private static List<String> list(URL root, String location) throws IOException, URISyntaxException {
+    List<String> paths = new ArrayList<>();
+    switch (root.getProtocol()) {
+      case "file" -> {
+        Path directory = Path.of(root.toURI());
+        for (Path file : walk(directory)) {
+          paths.add(location + "/" + relativePath(directory, file));
+        }
+      }
+      case "jar" -> {
+        JarURLConnection connection = (JarURLConnection) root.openConnection();
+        Path jar = Path.of(connection.getJarFileURL().toURI());
+        String prefix = location + "/";
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+          Enumeration<? extends ZipEntry> entries = zip.entries();
+          while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && entry.getName().startsWith(prefix)) {
+              paths.add(entry.getName());
+            }
+          }
+        }
+      }
+      default -> throw new IllegalArgumentException("Unsupported classpath location: " + root);
+    }
+    return paths;
+  }
+
+  private static List<Path> walk(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile).sorted().toList();
+    }
+  }
+
+  public static String relativePath(Path directory, Path file) {
+    return directory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+  }
+}
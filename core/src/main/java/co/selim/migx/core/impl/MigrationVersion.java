@@ -0,0 +1,77 @@
+package co.selim.migx.core.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A version like {@code 1_2} or {@code 1.2}, compared part by part. Missing parts count as zero,
+ * so {@code 1} and {@code 1.0} are the same version.
+ */
+public final class MigrationVersion implements Comparable<MigrationVersion> {
+
+  private final String version;
+  private final BigInteger[] parts;
+
+  private MigrationVersion(String version, BigInteger[] parts) {
+    this.version = version;
+    this.parts = parts;
+  }
+
+  public static MigrationVersion parse(String version) {
+    BigInteger[] parts = new BigInteger[version.length() / 2 + 1];
+    int count = 0;
+    int digitsStart = -1;
+    for (int i = 0; i < version.length(); i++) {
+      char c = version.charAt(i);
+      if (c >= '0' && c <= '9') {
+        if (digitsStart < 0) digitsStart = i;
+      } else {
+        // separators end a part, any other character turns the current part into zero
+        boolean separator = c == '.' || c == '_';
+        BigInteger part = separator && digitsStart >= 0 ? new BigInteger(version.substring(digitsStart, i)) : BigInteger.ZERO;
+        parts = append(parts, count++, part);
+        digitsStart = -1;
+      }
+    }
+    if (digitsStart >= 0) {
+      parts = append(parts, count++, new BigInteger(version.substring(digitsStart)));
+    }
+    while (count > 0 && parts[count - 1].signum() == 0) {
+      count--;
+    }
+    return new MigrationVersion(version, Arrays.copyOf(parts, count));
+  }
+
+  private static BigInteger[] append(BigInteger[] parts, int index, BigInteger part) {
+    BigInteger[] target = index < parts.length ? parts : Arrays.copyOf(parts, parts.length * 2);
+    target[index] = part;
+    return target;
+  }
+
+  @Override
+  public int compareTo(MigrationVersion other) {
+    int length = Math.max(parts.length, other.parts.length);
+    for (int i = 0; i < length; i++) {
+      BigInteger part = i < parts.length ? parts[i] : BigInteger.ZERO;
+      BigInteger otherPart = i < other.parts.length ? other.parts[i] : BigInteger.ZERO;
+      int comparison = part.compareTo(otherPart);
+      if (comparison != 0) return comparison;
+    }
+    return 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof MigrationVersion other && Arrays.equals(parts, other.parts);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(parts);
+  }
+
+  @Override
+  public String toString() {
+    return version.replace('_', '.');
+  }
+}
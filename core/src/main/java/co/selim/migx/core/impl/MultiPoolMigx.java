@@ -0,0 +1,78 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.MultiMigx;
+import co.selim.migx.core.impl.runner.MigrationRunner;
+import co.selim.migx.core.output.TargetSummary;
+import co.selim.migx.core.output.TargetSummaryBuilder;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Pool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultiPoolMigx implements MultiMigx {
+
+  private final List<Target> targets;
+  private final List<PoolMigx> migxs;
+  private final MigxOptions options;
+  private final MigrationLoader migrationLoader;
+
+  /**
+   * @param schema the schema to migrate, or {@code null} for the default schema of the pool's connections
+   */
+  public record Target(String name, Pool pool, String schema, MigrationRunner migrationRunner) {
+  }
+
+  public MultiPoolMigx(Vertx vertx, List<Target> targets, List<String> migrationPaths, MigxOptions options) {
+    this.targets = targets;
+    this.options = options;
+    this.migrationLoader = new MigrationLoader(vertx, migrationPaths, options);
+    this.migxs = targets.stream()
+      .map(target -> new PoolMigx(
+        vertx,
+        target.pool(),
+        target.schema(),
+        target.migrationRunner(),
+        options,
+        migrationLoader
+      ))
+      .toList();
+  }
+
+  @Override
+  public Future<List<TargetSummary>> migrate() {
+    return migrationLoader.load()
+      .compose(scripts -> {
+        TargetSummary[] summaries = new TargetSummary[targets.size()];
+        AtomicInteger nextTarget = new AtomicInteger();
+        int workers = Math.min(options.getTargetConcurrency(), targets.size());
+        List<Future<Void>> running = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+          running.add(migrateNext(scripts, nextTarget, summaries));
+        }
+        return Future.all(running).map(x -> Arrays.asList(summaries));
+      });
+  }
+
+  // every worker migrates one target after the other until none are left, targets on different pools
+  // can complete on different event loops
+  private Future<Void> migrateNext(List<SqlMigrationScript> scripts, AtomicInteger nextTarget, TargetSummary[] summaries) {
+    int index = nextTarget.getAndIncrement();
+    if (index >= targets.size()) {
+      return Future.succeededFuture();
+    }
+    return migxs.get(index).migrateWithSummary(scripts)
+      .transform(result -> {
+        summaries[index] = TargetSummaryBuilder.builder()
+          .target(targets.get(index).name())
+          .summary(result.result())
+          .failure(result.cause())
+          .build();
+        return migrateNext(scripts, nextTarget, summaries);
+      });
+  }
+}
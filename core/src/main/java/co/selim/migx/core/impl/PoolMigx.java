@@ -1,83 +1,471 @@
 package co.selim.migx.core.impl;
 
+import co.selim.migx.core.JavaMigration;
+import co.selim.migx.core.LockStrategy;
 import co.selim.migx.core.Migx;
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.runner.GroupMigrationRunner;
 import co.selim.migx.core.impl.runner.MigrationRunner;
-import co.selim.migx.core.impl.util.MigrationComparator;
-import co.selim.migx.core.impl.util.Paths;
+import co.selim.migx.core.output.MigrationEvent;
+import co.selim.migx.core.output.MigrationEventType;
 import co.selim.migx.core.output.MigrationOutput;
+import co.selim.migx.core.output.MigrationPlan;
+import co.selim.migx.core.output.MigrationSummary;
+import co.selim.migx.core.output.MigrationSummaryBuilder;
+import co.selim.migx.core.output.MigrationValidation;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.SqlConnectOptions;
+import io.vertx.sqlclient.SqlConnection;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static co.selim.migx.core.impl.util.Clock.millisSince;
+import static co.selim.migx.core.impl.util.Clock.nanoTime;
+import static co.selim.migx.core.impl.util.Clock.nanosSince;
+import static co.selim.migx.core.impl.util.Clock.now;
 
 public class PoolMigx implements Migx {
 
+  private static final System.Logger LOGGER = System.getLogger(PoolMigx.class.getName());
+
   private final Vertx vertx;
-  private final List<String> migrationPaths;
+  private final Pool pool;
+  private final SqlConnectOptions connectOptions;
+  private final String schema;
   private final MigrationRunner migrationRunner;
+  private final MigxOptions options;
+  private final MigrationLoader migrationLoader;
+  private volatile CachedValidation cachedValidation;
+
+  private record CachedValidation(MigrationValidation validation, int maxInstalledRank, long validatedAt) {
+  }
+
+  public PoolMigx(
+    Vertx vertx,
+    Pool pool,
+    List<String> migrationPaths,
+    MigrationRunner migrationRunner,
+    MigxOptions options
+  ) {
+    this(vertx, pool, migrationPaths, List.of(), migrationRunner, options);
+  }
+
+  public PoolMigx(
+    Vertx vertx,
+    Pool pool,
+    List<String> migrationPaths,
+    List<JavaMigration> javaMigrations,
+    MigrationRunner migrationRunner,
+    MigxOptions options
+  ) {
+    this(vertx, pool, null, null, migrationRunner, options, new MigrationLoader(vertx, migrationPaths, javaMigrations, options));
+  }
+
+  // migrations run on a dedicated single connection pool that only lives for the duration of a run
+  public PoolMigx(
+    Vertx vertx,
+    SqlConnectOptions connectOptions,
+    List<String> migrationPaths,
+    MigrationRunner migrationRunner,
+    MigxOptions options
+  ) {
+    this(vertx, connectOptions, migrationPaths, List.of(), migrationRunner, options);
+  }
 
-  public PoolMigx(Vertx vertx, List<String> migrationPaths, MigrationRunner migrationRunner) {
+  public PoolMigx(
+    Vertx vertx,
+    SqlConnectOptions connectOptions,
+    List<String> migrationPaths,
+    List<JavaMigration> javaMigrations,
+    MigrationRunner migrationRunner,
+    MigxOptions options
+  ) {
+    this(
+      vertx,
+      null,
+      connectOptions,
+      null,
+      migrationRunner,
+      options,
+      new MigrationLoader(vertx, migrationPaths, javaMigrations, options)
+    );
+  }
+
+  // migrates the given schema, or the default schema of the connections if it is null
+  PoolMigx(
+    Vertx vertx,
+    Pool pool,
+    String schema,
+    MigrationRunner migrationRunner,
+    MigxOptions options,
+    MigrationLoader migrationLoader
+  ) {
+    this(vertx, pool, null, schema, migrationRunner, options, migrationLoader);
+  }
+
+  private PoolMigx(
+    Vertx vertx,
+    Pool pool,
+    SqlConnectOptions connectOptions,
+    String schema,
+    MigrationRunner migrationRunner,
+    MigxOptions options,
+    MigrationLoader migrationLoader
+  ) {
     this.vertx = vertx;
-    this.migrationPaths = migrationPaths;
+    this.pool = pool;
+    this.connectOptions = connectOptions;
+    this.schema = schema;
     this.migrationRunner = migrationRunner;
+    this.options = options;
+    this.migrationLoader = migrationLoader;
   }
 
   @Override
   public Future<List<MigrationOutput>> migrate() {
-    return runMigrations();
+    return migrateWithSummary().map(MigrationSummary::migrations);
   }
 
-  private Future<List<MigrationOutput>> runMigrations() {
-    List<Future<List<String>>> migrationFiles = migrationPaths.stream()
-      .distinct()
-      .map(path -> vertx.fileSystem().readDir(path))
-      .toList();
+  @Override
+  public Future<MigrationSummary> migrateWithSummary() {
+    return migrateWithSummary(MigrationEvents.NONE);
+  }
 
-    return Future.all(migrationFiles)
-      .compose(files -> {
-        List<List<String>> migrationScripts = files.list();
-        List<String> allMigrations = migrationScripts.stream()
-          .flatMap(List::stream)
-          .sorted(new MigrationComparator())
-          .toList();
+  @Override
+  public ReadStream<MigrationEvent> migrateStream() {
+    MigrationEventStream events = new MigrationEventStream(vertx.getOrCreateContext());
+    events.emit(MigrationEventType.STARTED, null, null)
+      .compose(x -> migrateWithSummary(events))
+      .compose(summary -> events.emit(MigrationEventType.COMPLETED, null, null))
+      .onSuccess(x -> events.end())
+      .onFailure(events::fail);
+    return events;
+  }
 
-        return executeMigrationsSerially(allMigrations);
-      });
+  private Future<MigrationSummary> migrateWithSummary(MigrationEvents events) {
+    long startNanos = nanoTime();
+    return withContext(events, context -> migrationLoader.load().compose(scripts -> runMigrations(context, scripts)))
+      .onComplete(result -> reportRun(startNanos, result));
   }
 
-  private Future<List<MigrationOutput>> executeMigrationsSerially(List<String> paths) {
-    Future<List<MigrationOutput>> chain = Future.succeededFuture(new ArrayList<>(paths.size()));
-    for (String path : paths) {
-      chain = chain.compose(outputs ->
-        loadMigrationScript(path)
-          .compose(migrationRunner::run)
-          .onSuccess(output -> {
-            if (output != null) {
-              outputs.add(output);
-            }
-          })
-          .map(outputs)
+  // scripts that have already been loaded, so that they are shared between several targets
+  Future<MigrationSummary> migrateWithSummary(List<SqlMigrationScript> scripts) {
+    long startNanos = nanoTime();
+    return withContext(context -> runMigrations(context, scripts))
+      .onComplete(result -> reportRun(startNanos, result));
+  }
+
+  private void reportRun(long startNanos, AsyncResult<MigrationSummary> result) {
+    if (result.succeeded()) {
+      options.getListener().runCompleted(nanosSince(startNanos));
+    } else {
+      options.getListener().runFailed(nanosSince(startNanos), result.cause());
+    }
+  }
+
+  @Override
+  public Future<MigrationPlan> plan() {
+    return withContext(context -> migrationLoader.load()
+      .compose(scripts -> context.getConnection()
+        .compose(connection -> migrationRunner.readSchemaHistory(connection)
+          .map(schemaHistory -> HistoryComparison.plan(scripts, schemaHistory))
+          .eventually(() -> context.release(connection))
+        )
+      )
+    );
+  }
+
+  // a single query decides whether the cached result can be reused, a missing history table never can
+  @Override
+  public Future<MigrationValidation> validate() {
+    return withContext(context -> context.getConnection()
+      .compose(connection -> migrationRunner.loadMaxInstalledRank(connection)
+        .transform(maxInstalledRank -> {
+          int rank = maxInstalledRank.succeeded() ? maxInstalledRank.result() : -1;
+          CachedValidation cached = cachedValidation;
+          if (rank >= 0 && cached != null && cached.maxInstalledRank() == rank &&
+            millisSince(cached.validatedAt()) < options.getValidationCacheTtl()) {
+            return Future.succeededFuture(cached.validation());
+          }
+          long validatedAt = now();
+          return migrationLoader.load()
+            .compose(scripts -> migrationRunner.readSchemaHistory(connection)
+              .map(schemaHistory -> HistoryComparison.validate(scripts, schemaHistory))
+            )
+            .onSuccess(validation -> cachedValidation = new CachedValidation(validation, rank, validatedAt));
+        })
+        .eventually(() -> context.release(connection))
+      )
+    );
+  }
+
+  private <T> Future<T> withContext(Function<MigrationContext, Future<T>> work) {
+    return withContext(MigrationEvents.NONE, work);
+  }
+
+  private <T> Future<T> withContext(MigrationEvents events, Function<MigrationContext, Future<T>> work) {
+    if (pool != null) {
+      return work.apply(new MigrationContext(pool, schema, migrationRunner, events));
+    }
+    // repeatable migrations can run on additional connections
+    PoolOptions poolOptions = new PoolOptions().setMaxSize(options.getRepeatableConcurrency());
+    Pool dedicatedPool = Pool.pool(vertx, connectOptions, poolOptions);
+    return work.apply(new MigrationContext(dedicatedPool, schema, migrationRunner, events))
+      .eventually(dedicatedPool::close);
+  }
+
+  private Future<MigrationSummary> runMigrations(MigrationContext context, List<SqlMigrationScript> scripts) {
+    return context.getConnection()
+      .compose(connection -> isUpToDate(connection, scripts)
+        .compose(upToDate -> upToDate ?
+          context.emit(MigrationEventType.SKIPPED, scripts).map(List.<MigrationOutput>of()) :
+          runLocked(context, connection, scripts)
+        )
+        .eventually(() -> context.release(connection))
+      )
+      .map(migrations -> MigrationSummaryBuilder.builder()
+        .migrations(migrations)
+        .connectionsUsed(context.connectionsUsed())
+        .roundTrips(context.roundTrips())
+        .build()
+      );
+  }
+
+  // lock-free and read-only, a missing schema history table simply means the database is not up-to-date
+  private Future<Boolean> isUpToDate(SqlConnection connection, List<SqlMigrationScript> scripts) {
+    List<HistoryFingerprint> expected = HistoryFingerprint.upToDate(scripts);
+    return migrationRunner.loadHistoryFingerprint(connection)
+      .map(expected::contains)
+      .otherwise(false);
+  }
+
+  // the lock is held from reading the schema history until the last script finished, followers that waited
+  // for another instance are done if that applied the same migrations
+  private Future<List<MigrationOutput>> runLocked(
+    MigrationContext context,
+    SqlConnection connection,
+    List<SqlMigrationScript> scripts
+  ) {
+    Set<String> repeatableScripts = scripts.stream()
+      .filter(script -> script.category() == SqlMigrationScript.Category.REPEATABLE)
+      .map(SqlMigrationScript::filename)
+      .collect(Collectors.toSet());
+    return LockWaiter.acquire(vertx, migrationRunner, connection, options)
+      .compose(waited -> context.emit(MigrationEventType.LOCK_ACQUIRED, null, null)
+        .compose(x -> waited && options.getLockStrategy() == LockStrategy.FOLLOW ?
+          isUpToDate(connection, scripts) :
+          Future.succeededFuture(false)
+        )
+        .compose(upToDate -> upToDate ?
+          context.emit(MigrationEventType.SKIPPED, scripts).map(List.<MigrationOutput>of()) :
+          migrationRunner.loadSchemaHistory(connection)
+            .compose(schemaHistory -> {
+              List<SqlMigrationScript> skipped = new ArrayList<>();
+              List<SqlMigrationScript> pending = findPendingMigrations(scripts, schemaHistory, skipped);
+              return context.emit(MigrationEventType.SKIPPED, skipped)
+                .compose(x -> executeMigrations(context, connection, pending, schemaHistory, repeatableScripts));
+            })
+        )
+        .transform(result -> unlock(connection).transform(x -> result.succeeded() ?
+          Future.succeededFuture(result.result()) :
+          Future.<List<MigrationOutput>>failedFuture(result.cause())
+        ))
       );
+  }
+
+  // the outcome of the run doesn't depend on the lock being released. A connection that may still hold the
+  // lock must not go back to the pool though, as every other instance would wait for it
+  private Future<Void> unlock(SqlConnection connection) {
+    return migrationRunner.unlock(connection)
+      .recover(failure -> {
+        LOGGER.log(System.Logger.Level.WARNING, "Failed to release the migration lock, ending the session instead", failure);
+        return migrationRunner.endSession(connection)
+          .onFailure(cause -> LOGGER.log(System.Logger.Level.WARNING, "Failed to end the session holding the migration lock", cause))
+          .otherwiseEmpty();
+      });
+  }
+
+  private List<SqlMigrationScript> findPendingMigrations(
+    List<SqlMigrationScript> scripts,
+    SchemaHistory schemaHistory,
+    List<SqlMigrationScript> skipped
+  ) {
+    List<SqlMigrationScript> pending = new ArrayList<>();
+    // baselines are ordered first, once one is added the versioned migrations it covers aren't pending anymore
+    SqlMigrationScript baseline = schemaHistory.selectBaseline(scripts);
+    for (SqlMigrationScript script : scripts) {
+      if (script == baseline || schemaHistory.isPending(script)) {
+        schemaHistory.add(script);
+        pending.add(script);
+      } else {
+        skipped.add(script);
+      }
+    }
+    return pending;
+  }
+
+  private Future<List<MigrationOutput>> executeMigrations(
+    MigrationContext context,
+    SqlConnection connection,
+    List<SqlMigrationScript> scripts,
+    SchemaHistory schemaHistory,
+    Set<String> repeatableScripts
+  ) {
+    boolean concurrentRepeatables = options.getRepeatableConcurrency() > 1;
+    if (!options.isGroup() && !concurrentRepeatables) {
+      return executeMigrationsSerially(context, connection, prefetching(scripts), schemaHistory);
     }
-    return chain;
-  }
-
-  private Future<SqlMigrationScript> loadMigrationScript(String path) {
-    Future<String> fileReader = vertx.fileSystem()
-      .readFile(path)
-      .map(Buffer::toString);
-
-    String filename = Paths.getFilename(path);
-    return Future.succeededFuture(new SqlMigrationScript(
-        path,
-        filename,
-        fileReader,
-        Paths.getDescriptionFromFilename(filename),
-        SqlMigrationScript.Category.fromChar(Paths.getCategoryFromFilename(filename)),
-        Paths.getVersionFromFilename(filename)
+
+    Map<Boolean, List<SqlMigrationScript>> partitions = scripts.stream()
+      .collect(Collectors.partitioningBy(script -> script.category() != SqlMigrationScript.Category.REPEATABLE));
+    List<SqlMigrationScript> versioned = prefetching(partitions.get(true));
+    List<SqlMigrationScript> repeatable = partitions.get(false);
+
+    Future<List<MigrationOutput>> versionedOutputs;
+    if (!options.isGroup()) {
+      versionedOutputs = executeMigrationsSerially(context, connection, versioned, schemaHistory);
+    } else if (versioned.isEmpty()) {
+      versionedOutputs = Future.succeededFuture(new ArrayList<>());
+    } else {
+      versionedOutputs = executeGroup(context, connection, versioned, schemaHistory);
+    }
+    return versionedOutputs.compose(groupOutputs ->
+      (concurrentRepeatables ?
+        executeRepeatablesConcurrently(context, connection, repeatable, schemaHistory, repeatableScripts) :
+        executeMigrationsSerially(context, connection, prefetching(repeatable), schemaHistory)
       )
+        .map(outputs -> {
+          List<MigrationOutput> allOutputs = new ArrayList<>(groupOutputs.size() + outputs.size());
+          allOutputs.addAll(groupOutputs);
+          allOutputs.addAll(outputs);
+          return allOutputs;
+        })
     );
   }
+
+  // the scripts of a group only finish together, once the transaction committed
+  private Future<List<MigrationOutput>> executeGroup(
+    MigrationContext context,
+    SqlConnection connection,
+    List<SqlMigrationScript> scripts,
+    SchemaHistory schemaHistory
+  ) {
+    if (!(migrationRunner instanceof GroupMigrationRunner groupRunner)) {
+      return Future.failedFuture(new IllegalArgumentException(
+        "Group mode is not supported by " + migrationRunner.getClass().getSimpleName()
+      ));
+    }
+    return context.emit(MigrationEventType.SCRIPT_STARTED, scripts)
+      .compose(x -> groupRunner.runGroup(connection, scripts, schemaHistory::nextInstalledRank))
+      .compose(outputs -> {
+        Future<Void> chain = Future.succeededFuture();
+        for (int i = 0; i < scripts.size(); i++) {
+          SqlMigrationScript script = scripts.get(i);
+          MigrationOutput output = outputs.get(i);
+          chain = chain.compose(x -> context.emit(MigrationEventType.SCRIPT_FINISHED, script, output));
+        }
+        return chain.map(outputs);
+      });
+  }
+
+  // concurrently running scripts overlap reading anyway, so only serially executed scripts are prefetched
+  private List<SqlMigrationScript> prefetching(List<SqlMigrationScript> scripts) {
+    return ScriptPrefetcher.prefetching(scripts, options.getPrefetchWindow(), options.getPrefetchMaxBytes());
+  }
+
+  // history entries are written in migration order, regardless of the order in which the scripts completed
+  private Future<List<MigrationOutput>> executeRepeatablesConcurrently(
+    MigrationContext context,
+    SqlConnection connection,
+    List<SqlMigrationScript> scripts,
+    SchemaHistory schemaHistory,
+    Set<String> repeatableScripts
+  ) {
+    if (scripts.isEmpty()) {
+      return Future.succeededFuture(new ArrayList<>());
+    }
+    return RepeatableScheduler.execute(
+        context,
+        connection,
+        scripts,
+        repeatableScripts,
+        options.getRepeatableConcurrency(),
+        migrationRunner
+      )
+      .compose(result -> {
+        List<MigrationOutput> outputs = new ArrayList<>(scripts.size());
+        List<AppliedMigration> applied = new ArrayList<>(scripts.size());
+        for (int i = 0; i < scripts.size(); i++) {
+          MigrationOutput output = result.outputs().get(i);
+          if (output != null) {
+            outputs.add(output);
+            applied.add(new AppliedMigration(schemaHistory.nextInstalledRank(), scripts.get(i), output));
+          }
+        }
+        return recordHistory(connection, applied, result.failure() == null ?
+          Future.succeededFuture(outputs) :
+          Future.failedFuture(result.failure())
+        );
+      });
+  }
+
+  // the entries are written even if a script failed, whose failure is reported over one of the history write
+  private <T> Future<T> recordHistory(SqlConnection connection, List<AppliedMigration> applied, AsyncResult<T> result) {
+    return migrationRunner.updateHistoryTable(connection, applied)
+      .transform(written -> {
+        if (result.failed()) {
+          if (written.failed()) {
+            result.cause().addSuppressed(written.cause());
+          }
+          return Future.failedFuture(result.cause());
+        }
+        return written.failed() ? Future.failedFuture(written.cause()) : Future.succeededFuture(result.result());
+      });
+  }
+
+  private Future<List<MigrationOutput>> executeMigrationsSerially(
+    MigrationContext context,
+    SqlConnection connection,
+    List<SqlMigrationScript> scripts,
+    SchemaHistory schemaHistory
+  ) {
+    // repeatable migrations can safely be re-run, so their history is written in a single batch
+    List<AppliedMigration> unrecorded = new ArrayList<>();
+    Future<List<MigrationOutput>> chain = Future.succeededFuture(new ArrayList<>(scripts.size()));
+    for (SqlMigrationScript script : scripts) {
+      chain = chain.compose(outputs -> context.emit(MigrationEventType.SCRIPT_STARTED, script, null)
+        .compose(x -> executeMigration(connection, script, schemaHistory, unrecorded))
+        .compose(output -> context.emit(MigrationEventType.SCRIPT_FINISHED, script, output)
+          .map(x -> {
+            outputs.add(output);
+            return outputs;
+          })
+        )
+      );
+    }
+    return chain.transform(result -> recordHistory(connection, unrecorded, result));
+  }
+
+  private Future<MigrationOutput> executeMigration(
+    SqlConnection connection,
+    SqlMigrationScript script,
+    SchemaHistory schemaHistory,
+    List<AppliedMigration> unrecorded
+  ) {
+    return switch (script.category()) {
+      case VERSIONED, BASELINE -> migrationRunner.run(connection, script, schemaHistory.nextInstalledRank());
+      case REPEATABLE -> migrationRunner.execute(connection, script)
+        .onSuccess(output -> unrecorded.add(new AppliedMigration(schemaHistory.nextInstalledRank(), script, output)));
+    };
+  }
 }
@@ -0,0 +1,253 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.impl.runner.MigrationRunner;
+import co.selim.migx.core.impl.util.Utf8ChunkDecoder;
+import co.selim.migx.core.output.MigrationEventType;
+import co.selim.migx.core.output.MigrationOutput;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Runs repeatable migrations concurrently on several connections. A script can declare the scripts it
+ * depends on in its leading comments, e.g. {@code -- migx:depends-on R__functions.sql, R__types.sql},
+ * and only starts once they succeeded. Among the scripts that are ready, the first one in migration
+ * order is started first.
+ */
+final class RepeatableScheduler {
+
+  private static final String DEPENDS_ON = "migx:depends-on";
+  private static final Exception HEADER_READ = new Exception("Header read", null, false, false) {
+  };
+
+  private final MigrationContext context;
+  private final List<SqlMigrationScript> scripts;
+  private final MigrationRunner migrationRunner;
+  private final List<List<Integer>> dependents;
+  private final int[] remainingDependencies;
+  private final MigrationOutput[] outputs;
+  private final Queue<SqlConnection> idleConnections = new ArrayDeque<>();
+  private final PriorityQueue<Integer> ready = new PriorityQueue<>();
+  private final Promise<Result> promise = Promise.promise();
+  private Throwable failure;
+  private int inFlight;
+  private boolean dispatching;
+
+  /**
+   * @param outputs the output of every script in migration order, {@code null} if it didn't run
+   */
+  record Result(List<MigrationOutput> outputs, Throwable failure) {
+  }
+
+  private RepeatableScheduler(
+    MigrationContext context,
+    List<SqlMigrationScript> scripts,
+    List<Set<String>> dependencies,
+    MigrationRunner migrationRunner
+  ) {
+    this.context = context;
+    this.scripts = scripts;
+    this.migrationRunner = migrationRunner;
+    this.dependents = new ArrayList<>(scripts.size());
+    this.remainingDependencies = new int[scripts.size()];
+    this.outputs = new MigrationOutput[scripts.size()];
+
+    Map<String, Integer> indexes = new HashMap<>();
+    for (int i = 0; i < scripts.size(); i++) {
+      indexes.put(scripts.get(i).filename(), i);
+      dependents.add(new ArrayList<>());
+    }
+    for (int i = 0; i < scripts.size(); i++) {
+      for (String dependency : dependencies.get(i)) {
+        Integer dependencyIndex = indexes.get(dependency);
+        // dependencies that are not pending have already been applied
+        if (dependencyIndex != null) {
+          dependents.get(dependencyIndex).add(i);
+          remainingDependencies[i]++;
+        }
+      }
+    }
+    verifyAcyclic();
+    for (int i = 0; i < scripts.size(); i++) {
+      if (remainingDependencies[i] == 0) {
+        ready.add(i);
+      }
+    }
+  }
+
+  /**
+   * Runs the scripts on the given connection and up to {@code concurrency - 1} additional connections
+   * from the context. Stops starting scripts after the first failure.
+   */
+  static Future<Result> execute(
+    MigrationContext context,
+    SqlConnection connection,
+    List<SqlMigrationScript> scripts,
+    Set<String> knownScripts,
+    int concurrency,
+    MigrationRunner migrationRunner
+  ) {
+    List<Future<Set<String>>> dependencies = scripts.stream()
+      .map(script -> readDependencies(script, knownScripts))
+      .toList();
+
+    return Future.all(dependencies)
+      .compose(all -> {
+        RepeatableScheduler scheduler = new RepeatableScheduler(context, scripts, all.list(), migrationRunner);
+        int additionalConnections = Math.min(concurrency, scripts.size()) - 1;
+        List<Future<SqlConnection>> connections = new ArrayList<>(additionalConnections);
+        for (int i = 0; i < additionalConnections; i++) {
+          connections.add(context.getConnection());
+        }
+        return Future.join(connections)
+          .transform(acquired -> {
+            List<SqlConnection> additional = connections.stream()
+              .filter(Future::succeeded)
+              .map(Future::result)
+              .toList();
+            if (acquired.failed()) {
+              return closeAll(context, additional).transform(x -> Future.<Result>failedFuture(acquired.cause()));
+            }
+            return scheduler.run(connection, additional)
+              .eventually(() -> closeAll(context, additional));
+          });
+      });
+  }
+
+  private static Future<Void> closeAll(MigrationContext context, List<SqlConnection> connections) {
+    return Future.join(connections.stream().map(context::release).toList()).mapEmpty();
+  }
+
+  private Future<Result> run(SqlConnection connection, List<SqlConnection> additionalConnections) {
+    idleConnections.add(connection);
+    idleConnections.addAll(additionalConnections);
+    dispatch();
+    return promise.future();
+  }
+
+  private void dispatch() {
+    // scripts can complete synchronously, which must not recurse into dispatch
+    if (dispatching) {
+      return;
+    }
+    dispatching = true;
+    try {
+      while (failure == null && !ready.isEmpty() && !idleConnections.isEmpty()) {
+        int index = ready.poll();
+        SqlConnection connection = idleConnections.poll();
+        inFlight++;
+        // events are only emitted, concurrently running scripts don't wait for the receiver
+        context.emit(MigrationEventType.SCRIPT_STARTED, scripts.get(index), null);
+        migrationRunner.execute(connection, scripts.get(index))
+          .onComplete(result -> {
+            inFlight--;
+            idleConnections.add(connection);
+            if (result.succeeded()) {
+              outputs[index] = result.result();
+              context.emit(MigrationEventType.SCRIPT_FINISHED, scripts.get(index), result.result());
+              for (int dependent : dependents.get(index)) {
+                if (--remainingDependencies[dependent] == 0) {
+                  ready.add(dependent);
+                }
+              }
+            } else if (failure == null) {
+              failure = result.cause();
+            }
+            dispatch();
+          });
+      }
+    } catch (RuntimeException e) {
+      if (failure == null) {
+        failure = e;
+      }
+    } finally {
+      dispatching = false;
+    }
+    if (inFlight == 0 && (failure != null || ready.isEmpty())) {
+      promise.tryComplete(new Result(Arrays.asList(outputs), failure));
+    }
+  }
+
+  private void verifyAcyclic() {
+    int[] remaining = remainingDependencies.clone();
+    Queue<Integer> queue = new ArrayDeque<>();
+    for (int i = 0; i < remaining.length; i++) {
+      if (remaining[i] == 0) queue.add(i);
+    }
+    int visited = 0;
+    while (!queue.isEmpty()) {
+      int index = queue.poll();
+      visited++;
+      for (int dependent : dependents.get(index)) {
+        if (--remaining[dependent] == 0) queue.add(dependent);
+      }
+    }
+    if (visited < scripts.size()) {
+      List<String> cyclic = new ArrayList<>();
+      for (int i = 0; i < remaining.length; i++) {
+        if (remaining[i] > 0) cyclic.add(scripts.get(i).filename());
+      }
+      throw new IllegalStateException("Cyclic dependencies between repeatable migrations: " + String.join(", ", cyclic));
+    }
+  }
+
+  // only the first chunk is read, the header is expected at the very top of the script
+  private static Future<Set<String>> readDependencies(SqlMigrationScript script, Set<String> knownScripts) {
+    Utf8ChunkDecoder decoder = new Utf8ChunkDecoder();
+    StringBuilder header = new StringBuilder();
+    return script.content()
+      .read(chunk -> {
+        header.append(decoder.decode(chunk));
+        return Future.failedFuture(HEADER_READ);
+      })
+      .transform(result -> {
+        if (result.failed() && result.cause() != HEADER_READ) {
+          return Future.failedFuture(result.cause());
+        }
+        Set<String> dependencies = parseDependencies(header);
+        for (String dependency : dependencies) {
+          if (!knownScripts.contains(dependency)) {
+            return Future.failedFuture(new IllegalArgumentException(
+              "Unknown dependency " + dependency + " of repeatable migration " + script.filename()
+            ));
+          }
+        }
+        return Future.succeededFuture(dependencies);
+      });
+  }
+
+  static Set<String> parseDependencies(CharSequence header) {
+    Set<String> dependencies = new LinkedHashSet<>();
+    for (String line : header.toString().split("\r?\n|\r")) {
+      String trimmed = line.strip();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      if (!trimmed.startsWith("--")) {
+        break;
+      }
+      String comment = trimmed.substring(2).strip();
+      if (comment.toLowerCase(Locale.ROOT).startsWith(DEPENDS_ON)) {
+        for (String dependency : comment.substring(DEPENDS_ON.length()).split("[,\\s]+")) {
+          if (!dependency.isEmpty()) {
+            dependencies.add(dependency);
+          }
+        }
+      }
+    }
+    return dependencies;
+  }
+}
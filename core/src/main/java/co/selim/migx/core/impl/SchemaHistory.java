@@ -0,0 +1,177 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class SchemaHistory {
+
+  private final Map<String, Integer> checksumsByVersion;
+  private final Map<String, Integer> checksumsByScript;
+  private final Map<String, String> scriptsByVersion;
+  private int maxInstalledRank;
+  private MigrationVersion baselineVersion;
+
+  private SchemaHistory(
+    Map<String, Integer> checksumsByVersion,
+    Map<String, Integer> checksumsByScript,
+    Map<String, String> scriptsByVersion,
+    int maxInstalledRank,
+    MigrationVersion baselineVersion
+  ) {
+    this.checksumsByVersion = checksumsByVersion;
+    this.checksumsByScript = checksumsByScript;
+    this.scriptsByVersion = scriptsByVersion;
+    this.maxInstalledRank = maxInstalledRank;
+    this.baselineVersion = baselineVersion;
+  }
+
+  public static SchemaHistory empty() {
+    return new SchemaHistory(new HashMap<>(), new HashMap<>(), new HashMap<>(), 0, null);
+  }
+
+  // rows must be ordered by installed_rank so that the latest entry of a script wins
+  public static SchemaHistory from(RowSet<Row> rows) {
+    Map<String, Integer> checksumsByVersion = new HashMap<>(rows.size() * 2);
+    Map<String, Integer> checksumsByScript = new LinkedHashMap<>(rows.size() * 2);
+    Map<String, String> scriptsByVersion = new LinkedHashMap<>(rows.size() * 2);
+    int maxInstalledRank = 0;
+    MigrationVersion baselineVersion = null;
+    for (Row row : rows) {
+      maxInstalledRank = Math.max(maxInstalledRank, row.getInteger("installed_rank"));
+      String version = row.getString("version");
+      String script = row.getString("script");
+      Integer checksum = row.getInteger("checksum");
+      // baselines share their version with the versioned migration they end with
+      if (isBaseline(row.getString("type"))) {
+        baselineVersion = max(baselineVersion, MigrationVersion.parse(version));
+      } else if (version != null) {
+        checksumsByVersion.put(version, checksum);
+        scriptsByVersion.put(version, script);
+      }
+      checksumsByScript.put(script, checksum);
+    }
+    return new SchemaHistory(checksumsByVersion, checksumsByScript, scriptsByVersion, maxInstalledRank, baselineVersion);
+  }
+
+  // baseline migrations as well as Flyway's baseline command
+  private static boolean isBaseline(String type) {
+    return type != null && type.endsWith("BASELINE");
+  }
+
+  private static MigrationVersion max(MigrationVersion current, MigrationVersion candidate) {
+    return current == null || candidate.compareTo(current) > 0 ? candidate : current;
+  }
+
+  public boolean isEmpty() {
+    return checksumsByScript.isEmpty();
+  }
+
+  /**
+   * Returns the baseline with the highest version if the history is empty, which then takes the place of the
+   * versioned migrations it covers. Otherwise baselines don't run, so that existing databases are unaffected.
+   */
+  public SqlMigrationScript selectBaseline(List<SqlMigrationScript> scripts) {
+    if (!isEmpty()) {
+      return null;
+    }
+    SqlMigrationScript baseline = null;
+    for (SqlMigrationScript script : scripts) {
+      if (script.category() == SqlMigrationScript.Category.BASELINE && (baseline == null ||
+        MigrationVersion.parse(script.version()).compareTo(MigrationVersion.parse(baseline.version())) > 0)) {
+        baseline = script;
+      }
+    }
+    return baseline;
+  }
+
+  /**
+   * Whether a versioned migration that isn't in the history is covered by an applied baseline.
+   */
+  public boolean isCoveredByBaseline(SqlMigrationScript script) {
+    return script.category() == SqlMigrationScript.Category.VERSIONED &&
+      baselineVersion != null &&
+      !checksumsByVersion.containsKey(script.version()) &&
+      MigrationVersion.parse(script.version()).compareTo(baselineVersion) <= 0;
+  }
+
+  public int maxInstalledRank() {
+    return maxInstalledRank;
+  }
+
+  public Map<String, String> scriptsByVersion() {
+    return scriptsByVersion;
+  }
+
+  /**
+   * The latest checksum of every script, including versioned ones.
+   */
+  public Map<String, Integer> checksumsByScript() {
+    return checksumsByScript;
+  }
+
+  /**
+   * Baselines are never pending, see {@link #selectBaseline(List)}.
+   */
+  public boolean isPending(SqlMigrationScript script) {
+    return switch (script.category()) {
+      case VERSIONED -> !isCoveredByBaseline(script) && isVersionedMigrationPending(script);
+      case REPEATABLE -> isRepeatableMigrationPending(script);
+      case BASELINE -> false;
+    };
+  }
+
+  private boolean isRepeatableMigrationPending(SqlMigrationScript script) {
+    Integer storedChecksum = checksumsByScript.get(script.filename());
+    return !checksumsByScript.containsKey(script.filename()) || !Objects.equals(storedChecksum, script.checksum());
+  }
+
+  private boolean isVersionedMigrationPending(SqlMigrationScript script) {
+    if (!checksumsByVersion.containsKey(script.version())) {
+      return true;
+    }
+    // Existing migration - verify checksum
+    Integer storedChecksum = checksumsByVersion.get(script.version());
+    if (!Objects.equals(storedChecksum, script.checksum())) {
+      throw new RuntimeException(
+        "Checksum mismatch for version " + script.version() +
+          ". Expected " + storedChecksum + " but was " + script.checksum()
+      );
+    }
+    return false; // Already applied
+  }
+
+  public boolean contains(SqlMigrationScript script) {
+    return switch (script.category()) {
+      case VERSIONED -> checksumsByVersion.containsKey(script.version());
+      case REPEATABLE, BASELINE -> checksumsByScript.containsKey(script.filename());
+    };
+  }
+
+  public Integer appliedChecksum(SqlMigrationScript script) {
+    return switch (script.category()) {
+      case VERSIONED -> checksumsByVersion.get(script.version());
+      case REPEATABLE, BASELINE -> checksumsByScript.get(script.filename());
+    };
+  }
+
+  // only valid while the migration lock is held
+  public int nextInstalledRank() {
+    return ++maxInstalledRank;
+  }
+
+  public void add(SqlMigrationScript script) {
+    if (script.category() == SqlMigrationScript.Category.BASELINE) {
+      baselineVersion = max(baselineVersion, MigrationVersion.parse(script.version()));
+    } else if (!script.version().isEmpty()) {
+      checksumsByVersion.put(script.version(), script.checksum());
+      scriptsByVersion.put(script.version(), script.filename());
+    }
+    checksumsByScript.put(script.filename(), script.checksum());
+  }
+}
@@ -0,0 +1,24 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.function.Function;
+
+@FunctionalInterface
+public interface ScriptContent {
+
+  /**
+   * Reads the content chunk by chunk. The next chunk is only read once the future returned by the
+   * chunk handler completed, a failed future stops reading.
+   */
+  Future<Void> read(Function<Buffer, Future<Void>> chunkHandler);
+
+  default Future<Buffer> readFully() {
+    Buffer content = Buffer.buffer();
+    return read(chunk -> {
+      content.appendBuffer(chunk);
+      return Future.succeededFuture();
+    }).map(content);
+  }
+}
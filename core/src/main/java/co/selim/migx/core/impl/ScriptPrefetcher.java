@@ -0,0 +1,101 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads the contents of the next scripts into memory while the current one is executed, so that reading
+ * overlaps with database work. Scripts that don't fit into the remaining memory budget are streamed as usual.
+ */
+final class ScriptPrefetcher {
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final Exception BUDGET_EXCEEDED = new Exception("Prefetch memory budget exceeded", null, false, false) {
+  };
+
+  private final List<SqlMigrationScript> scripts;
+  private final int window;
+  private final long maxBytes;
+  private final Map<Integer, Future<Buffer>> prefetched = new HashMap<>();
+  private int prefetchedUntil;
+  private long bufferedBytes;
+
+  private ScriptPrefetcher(List<SqlMigrationScript> scripts, int window, long maxBytes) {
+    this.scripts = scripts;
+    this.window = window;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the scripts in the same order, reading the content of a script prefetches the following ones.
+   */
+  static List<SqlMigrationScript> prefetching(List<SqlMigrationScript> scripts, int window, long maxBytes) {
+    if (window == 0 || maxBytes == 0 || scripts.size() < 2) {
+      return scripts;
+    }
+    ScriptPrefetcher prefetcher = new ScriptPrefetcher(scripts, window, maxBytes);
+    List<SqlMigrationScript> prefetchingScripts = new ArrayList<>(scripts.size());
+    for (int i = 0; i < scripts.size(); i++) {
+      prefetchingScripts.add(scripts.get(i).withContent(prefetcher.content(i)));
+    }
+    return prefetchingScripts;
+  }
+
+  private ScriptContent content(int index) {
+    return chunkHandler -> take(index).compose(buffer -> buffer == null ?
+      scripts.get(index).content().read(chunkHandler) :
+      readChunks(buffer, 0, chunkHandler)
+    );
+  }
+
+  private Future<Buffer> take(int index) {
+    Future<Buffer> buffer = prefetched.remove(index);
+    int until = Math.min(scripts.size(), index + 1 + window);
+    for (int i = Math.max(prefetchedUntil, index + 1); i < until; i++) {
+      prefetched.put(i, prefetch(scripts.get(i)));
+    }
+    prefetchedUntil = Math.max(prefetchedUntil, until);
+    if (buffer == null) {
+      return Future.succeededFuture();
+    }
+    return buffer.onSuccess(content -> {
+      if (content != null) {
+        bufferedBytes -= content.length();
+      }
+    });
+  }
+
+  // completes with null if the script could not be prefetched, in which case it is streamed when it runs
+  private Future<Buffer> prefetch(SqlMigrationScript script) {
+    Buffer content = Buffer.buffer();
+    return script.content()
+      .read(chunk -> {
+        if (bufferedBytes + chunk.length() > maxBytes) {
+          return Future.failedFuture(BUDGET_EXCEEDED);
+        }
+        bufferedBytes += chunk.length();
+        content.appendBuffer(chunk);
+        return Future.succeededFuture();
+      })
+      .map(content)
+      .otherwise(failure -> {
+        bufferedBytes -= content.length();
+        return null;
+      });
+  }
+
+  private static Future<Void> readChunks(Buffer content, int offset, Function<Buffer, Future<Void>> chunkHandler) {
+    if (offset >= content.length()) {
+      return Future.succeededFuture();
+    }
+    int end = Math.min(content.length(), offset + CHUNK_SIZE);
+    return chunkHandler.apply(content.slice(offset, end))
+      .compose(x -> readChunks(content, end, chunkHandler));
+  }
+}
@@ -1,23 +1,88 @@
 package co.selim.migx.core.impl;
 
+import co.selim.migx.core.JavaMigration;
 import io.vertx.core.Future;
 
+/**
+ * @param javaMigration runs instead of the content, which is empty, {@code null} for migration scripts
+ */
 public record SqlMigrationScript(
   String filepath,
   String filename,
-  Future<String> sql,
+  ScriptContent content,
   String description,
   Category category,
-  String version
+  String version,
+  int checksum,
+  JavaMigration javaMigration
 ) {
 
+  private static final ScriptContent EMPTY = chunkHandler -> Future.succeededFuture();
+
+  public SqlMigrationScript(
+    String filepath,
+    String filename,
+    ScriptContent content,
+    String description,
+    Category category,
+    String version,
+    int checksum
+  ) {
+    this(filepath, filename, content, description, category, version, checksum, null);
+  }
+
+  public static SqlMigrationScript of(JavaMigration migration) {
+    String className = migration.getClass().getName();
+    return new SqlMigrationScript(
+      className,
+      className,
+      EMPTY,
+      migration.getDescription(),
+      migration.getVersion() == null ? Category.REPEATABLE : Category.VERSIONED,
+      migration.getVersion() == null ? "" : migration.getVersion(),
+      migration.getChecksum(),
+      migration
+    );
+  }
+
+  public SqlMigrationScript withContent(ScriptContent content) {
+    return new SqlMigrationScript(filepath, filename, content, description, category, version, checksum, javaMigration);
+  }
+
+  /**
+   * CSV files are loaded into the table named in their first line instead of being executed.
+   */
+  public boolean isDataFile() {
+    return javaMigration == null && filename.endsWith(".csv");
+  }
+
+  /**
+   * The type recorded in the schema history, the same as Flyway's. Data files have no Flyway equivalent and
+   * are recorded as custom migrations.
+   */
+  public String historyType() {
+    if (javaMigration != null) {
+      return "JDBC";
+    }
+    if (isDataFile()) {
+      return "CUSTOM";
+    }
+    return category == Category.BASELINE ? "SQL_BASELINE" : "SQL";
+  }
+
   public enum Category {
-    VERSIONED, REPEATABLE;
+    VERSIONED, REPEATABLE,
+    /**
+     * Consolidates the versioned migrations up to its version. It only runs on an empty schema history, instead of
+     * the versioned migrations it covers.
+     */
+    BASELINE;
 
     public static Category fromChar(char identifier) {
       return switch (identifier) {
         case 'V' -> VERSIONED;
         case 'R' -> REPEATABLE;
+        case 'B' -> BASELINE;
         case 'U' -> throw new IllegalArgumentException("Undo migrations are not supported");
         default -> throw new IllegalArgumentException("Unknown migration type: " + identifier);
       };
@@ -28,7 +93,9 @@ public record SqlMigrationScript(
       return switch (this) {
         case VERSIONED -> "Versioned";
         case REPEATABLE -> "Repeatable";
+        case BASELINE -> "Baseline";
       };
     }
+
   }
 }
@@ -0,0 +1,20 @@
+package co.selim.migx.core.impl.runner;
+
+import co.selim.migx.core.impl.SqlMigrationScript;
+import co.selim.migx.core.output.MigrationOutput;
+import io.vertx.core.Future;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * A runner of a database with transactional DDL, which can apply several migrations at once.
+ */
+public interface GroupMigrationRunner extends MigrationRunner {
+
+  /**
+   * Executes all scripts and records them in the schema history within a single transaction.
+   */
+  Future<List<MigrationOutput>> runGroup(SqlConnection connection, List<SqlMigrationScript> scripts, IntSupplier installedRanks);
+}
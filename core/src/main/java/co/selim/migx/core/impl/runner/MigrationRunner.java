@@ -1,10 +1,94 @@
 package co.selim.migx.core.impl.runner;
 
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.AppliedMigration;
+import co.selim.migx.core.impl.HistoryFingerprint;
+import co.selim.migx.core.impl.SchemaHistory;
 import co.selim.migx.core.impl.SqlMigrationScript;
+import co.selim.migx.core.impl.util.Pools;
 import co.selim.migx.core.output.MigrationOutput;
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.List;
 
 public interface MigrationRunner {
 
-  Future<MigrationOutput> run(SqlMigrationScript script);
+  String DEFAULT_LOCK_NAME = "migx";
+
+  /**
+   * @param lockName runners with different lock names don't exclude each other, e.g. for separate schemas
+   */
+  static MigrationRunner create(Vertx vertx, Pools.Implementation implementation, MigxOptions options, String lockName) {
+    return switch (implementation) {
+      case POSTGRES -> new PgMigrationRunner(vertx, options, lockName);
+      case MYSQL -> {
+        if (options.isGroup()) {
+          throw new IllegalArgumentException("Group mode is not supported on MySQL, as DDL causes an implicit commit");
+        }
+        yield new MySQLMigrationRunner(vertx, options, lockName);
+      }
+    };
+  }
+
+  /**
+   * Tries to acquire the migration lock without waiting for it.
+   *
+   * @return whether the lock was acquired
+   */
+  Future<Boolean> tryLock(SqlConnection connection);
+
+  Future<Void> unlock(SqlConnection connection);
+
+  /**
+   * Ends the database session of the connection, which releases the locks it still holds. The connection
+   * is closed by the database, so a pool doesn't hand it out again.
+   */
+  Future<Void> endSession(SqlConnection connection);
+
+  /**
+   * Makes the schema the default schema of the connection.
+   *
+   * @return the previous default, to be passed to {@link #restoreSchema(SqlConnection, String)}
+   */
+  Future<String> useSchema(SqlConnection connection, String schema);
+
+  Future<Void> restoreSchema(SqlConnection connection, String previousSchema);
+
+  /**
+   * Fails if the schema history table does not exist yet.
+   */
+  Future<HistoryFingerprint> loadHistoryFingerprint(SqlConnection connection);
+
+  /**
+   * Fails if the schema history table does not exist yet.
+   */
+  Future<Integer> loadMaxInstalledRank(SqlConnection connection);
+
+  Future<SchemaHistory> loadSchemaHistory(SqlConnection connection);
+
+  /**
+   * Reads the schema history without creating the table, a missing table is an empty history.
+   */
+  Future<SchemaHistory> readSchemaHistory(SqlConnection connection);
+
+  /**
+   * Executes the script and records it in the schema history.
+   */
+  Future<MigrationOutput> run(SqlConnection connection, SqlMigrationScript script, int installedRank);
+
+  /**
+   * Executes the script without recording it, see {@link #updateHistoryTable(SqlConnection, List)}.
+   */
+  Future<MigrationOutput> execute(SqlConnection connection, SqlMigrationScript script);
+
+  Future<Void> updateHistoryTable(SqlConnection connection, List<AppliedMigration> migrations);
+
+  /**
+   * Adds the round trips sent on the connection to the counter, until {@link #stopCounting(SqlConnection)}.
+   */
+  void startCounting(SqlConnection connection, RoundTripCounter counter);
+
+  void stopCounting(SqlConnection connection);
 }
@@ -1,7 +1,14 @@
 package co.selim.migx.core.impl.runner;
 
+import co.selim.migx.core.MigxListener;
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.AppliedMigration;
+import co.selim.migx.core.impl.ClasspathScriptContent;
+import co.selim.migx.core.impl.HistoryFingerprint;
+import co.selim.migx.core.impl.SchemaHistory;
 import co.selim.migx.core.impl.SqlMigrationScript;
-import co.selim.migx.core.impl.util.Pair;
+import co.selim.migx.core.impl.util.CsvLoader;
+import co.selim.migx.core.impl.util.StatementPipeline;
 import co.selim.migx.core.output.MigrationOutput;
 import co.selim.migx.core.output.MigrationOutputBuilder;
 import io.vertx.core.Future;
@@ -9,75 +16,71 @@ import io.vertx.core.Vertx;
 import io.vertx.sqlclient.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import static co.selim.migx.core.impl.util.Checksums.calculateChecksum;
 import static co.selim.migx.core.impl.util.Clock.millisSince;
+import static co.selim.migx.core.impl.util.Clock.nanoTime;
+import static co.selim.migx.core.impl.util.Clock.nanosSince;
+import static co.selim.migx.core.impl.util.Pools.Implementation.MYSQL;
 import static co.selim.migx.core.impl.util.Clock.now;
+import static co.selim.migx.core.output.RoundTripKind.HISTORY_READ;
+import static co.selim.migx.core.output.RoundTripKind.HISTORY_WRITE;
+import static co.selim.migx.core.output.RoundTripKind.LOCK;
+import static co.selim.migx.core.output.RoundTripKind.SCHEMA_SWITCH;
+import static co.selim.migx.core.output.RoundTripKind.SCRIPT;
 
 public class MySQLMigrationRunner implements MigrationRunner {
 
-  private static final Tuple LOCK_NAME = Tuple.of("migx");
+  private static final int MAX_LOCK_NAME_LENGTH = 64;
+  private static final String SELECT_SCHEMA_HISTORY = """
+    select installed_rank, version, type, script, checksum from flyway_schema_history \
+    order by installed_rank\
+    """;
   private final Vertx vertx;
-  private final Pool pool;
+  private final MigxOptions options;
+  private final Tuple lockName;
   private final AtomicBoolean schemaHistoryCreated = new AtomicBoolean(false);
+  private final RoundTripTracker roundTrips;
 
-  public MySQLMigrationRunner(Vertx vertx, Pool pool) {
-    this.vertx = vertx;
-    this.pool = pool;
-  }
-
-  @Override
-  public Future<MigrationOutput> run(SqlMigrationScript script) {
-    if (schemaHistoryCreated.compareAndSet(false, true)) {
-      return createSchemaHistoryTableIfNotExists()
-        .compose(x -> doRun(script));
-    } else {
-      return doRun(script);
-    }
+  public MySQLMigrationRunner(Vertx vertx, MigxOptions options) {
+    this(vertx, options, DEFAULT_LOCK_NAME);
   }
 
-  private Future<MigrationOutput> doRun(SqlMigrationScript script) {
-    return pool.getConnection()
-      .compose(connection -> {
-          var output = switch (script.category()) {
-            // MySQL has different transaction behavior - DDL causes implicit commit
-            case VERSIONED -> lock(connection)
-              .compose(x -> runVersionedMigration(connection, script))
-              .eventually(() -> unlock(connection));
-            // REPEATABLE migrations can run without transaction
-            case REPEATABLE -> runRepeatableMigration(connection, script);
-          };
-          return output.compose(result ->
-            result != null ?
-              updateHistoryTable(connection, script, result.left(), result.right()) :
-              Future.succeededFuture()
-          );
-        }
-      );
+  // locks are server-wide and their names are limited to 64 characters
+  public MySQLMigrationRunner(Vertx vertx, MigxOptions options, String lockName) {
+    this.vertx = vertx;
+    this.options = options;
+    this.roundTrips = new RoundTripTracker(options);
+    this.lockName = Tuple.of(lockName.length() <= MAX_LOCK_NAME_LENGTH ?
+      lockName :
+      DEFAULT_LOCK_NAME + "." + Integer.toHexString(lockName.hashCode())
+    );
   }
 
-  private Future<Void> lock(SqlConnection connection) {
+  @Override
+  public Future<Boolean> tryLock(SqlConnection connection) {
     return connection.preparedQuery("select get_lock(?, 0)")
-      .execute(LOCK_NAME)
+      .execute(lockName)
+      .onComplete(roundTrips.one(connection, LOCK))
       .compose(rowSet -> {
         Integer returnValue = rowSet.iterator().next().getInteger(0);
         if (returnValue == null) {
           return Future.failedFuture("Failed to acquire lock");
         }
-        if (returnValue == 0) {
-          return Future.failedFuture("Timed out while waiting to acquire lock");
-        }
-        if (returnValue == 1) {
-          return Future.succeededFuture();
+        if (returnValue == 0 || returnValue == 1) {
+          return Future.succeededFuture(returnValue == 1);
         }
         return Future.failedFuture(new IllegalStateException("Unexpected result when trying to acquire lock: " + returnValue));
       });
   }
 
-  private Future<Void> unlock(SqlConnection connection) {
+  @Override
+  public Future<Void> unlock(SqlConnection connection) {
     return connection.preparedQuery("select release_lock(?)")
-      .execute(LOCK_NAME)
+      .execute(lockName)
+      .onComplete(roundTrips.one(connection, LOCK))
       .compose(rowSet -> {
         Integer returnValue = rowSet.iterator().next().getInteger(0);
         if (returnValue == null) {
@@ -93,113 +96,209 @@ public class MySQLMigrationRunner implements MigrationRunner {
       });
   }
 
-  private Future<Void> createSchemaHistoryTableIfNotExists() {
-    return vertx.fileSystem()
-      .readFile("mysql_flyway_schema_history_ddl.sql")
-      .compose(buffer -> pool.query(buffer.toString()).execute().mapEmpty());
+  // KILL only takes a literal id, the statement itself fails, as its session is killed before it completes
+  @Override
+  public Future<Void> endSession(SqlConnection connection) {
+    return connection.query("select connection_id()")
+      .execute()
+      .onComplete(roundTrips.one(connection, LOCK))
+      .compose(rowSet -> connection.query("kill " + rowSet.iterator().next().getLong(0))
+        .execute()
+        .onComplete(roundTrips.one(connection, LOCK))
+        .otherwiseEmpty()
+      )
+      .mapEmpty();
   }
 
-  private Future<Pair<MigrationOutput, Integer>> runRepeatableMigration(SqlConnection connection, SqlMigrationScript script) {
-    return connection.preparedQuery("""
-        select checksum FROM flyway_schema_history \
-        where script = ? \
-        order by installed_rank desc \
-        limit 1\
+  // a connection without a default database can't be switched back to that, it keeps the schema instead
+  @Override
+  public Future<String> useSchema(SqlConnection connection, String schema) {
+    return connection.query("select database()")
+      .execute()
+      .onComplete(roundTrips.one(connection, SCHEMA_SWITCH))
+      .compose(rowSet -> connection.query("use " + quoteIdentifier(schema))
+        .execute()
+        .onComplete(roundTrips.one(connection, SCHEMA_SWITCH))
+        .map(rowSet.iterator().next().getString(0))
+      );
+  }
+
+  @Override
+  public Future<Void> restoreSchema(SqlConnection connection, String previousSchema) {
+    if (previousSchema == null) {
+      return Future.succeededFuture();
+    }
+    return connection.query("use " + quoteIdentifier(previousSchema))
+      .execute()
+      .onComplete(roundTrips.one(connection, SCHEMA_SWITCH))
+      .mapEmpty();
+  }
+
+  private static String quoteIdentifier(String identifier) {
+    return '`' + identifier.replace("`", "``") + '`';
+  }
+
+  @Override
+  public Future<HistoryFingerprint> loadHistoryFingerprint(SqlConnection connection) {
+    return connection.query("""
+        select count(*) as migration_count, \
+        coalesce(sum(checksum), 0) as checksum_sum, \
+        coalesce(sum(cast(conv(substr(md5(concat(coalesce(version, script), ':', coalesce(checksum, 0))), 1, 8), 16, 10) \
+        as unsigned)), 0) as name_hash_sum \
+        from flyway_schema_history h \
+        where success and (version is not null or installed_rank = (\
+        select max(installed_rank) from flyway_schema_history r \
+        where r.script = h.script and r.version is null\
+        ))\
         """)
-      .execute(Tuple.of(script.filename()))
-      .compose(rowSet -> script.sql()
-        .compose(sql -> {
-          int currentChecksum = calculateChecksum(sql);
-          RowIterator<Row> iterator = rowSet.iterator();
-
-          if (!iterator.hasNext() || iterator.next().getInteger("checksum") != currentChecksum) {
-            long startTime = now();
-            return connection.query(sql).execute()
-              .map(x -> {
-                MigrationOutput output = MigrationOutputBuilder.builder()
-                  .category(script.category().toString())
-                  .version(script.version())
-                  .description(script.description())
-                  .type("SQL")
-                  .filepath(script.filepath())
-                  .executionTime(millisSince(startTime))
-                  .build();
-                return new Pair<>(output, currentChecksum);
-              });
-          } else {
-            return Future.succeededFuture();
-          }
-        }));
-  }
-
-  private Future<Pair<MigrationOutput, Integer>> runVersionedMigration(SqlConnection connection, SqlMigrationScript script) {
-    // For MySQL, we need to handle DDL separately since it causes implicit commit
-    return connection.preparedQuery("""
-        select checksum from flyway_schema_history \
-        where version = ?\
+      .execute()
+      .onComplete(roundTrips.one(connection, HISTORY_READ))
+      .map(rowSet -> HistoryFingerprint.from(rowSet.iterator().next()));
+  }
+
+  @Override
+  public Future<Integer> loadMaxInstalledRank(SqlConnection connection) {
+    return connection.query("select coalesce(max(installed_rank), 0) from flyway_schema_history")
+      .execute()
+      .onComplete(roundTrips.one(connection, HISTORY_READ))
+      .map(rowSet -> rowSet.iterator().next().getInteger(0));
+  }
+
+  @Override
+  public Future<SchemaHistory> loadSchemaHistory(SqlConnection connection) {
+    return createSchemaHistoryTableIfNotExists(connection)
+      .compose(x -> connection.query(SELECT_SCHEMA_HISTORY).execute().onComplete(roundTrips.one(connection, HISTORY_READ)))
+      .map(SchemaHistory::from);
+  }
+
+  @Override
+  public Future<SchemaHistory> readSchemaHistory(SqlConnection connection) {
+    return connection.query("""
+        select count(*) from information_schema.tables \
+        where table_schema = database() and table_name = 'flyway_schema_history'\
         """)
-      .execute(Tuple.of(script.version()))
-      .compose(rowSet -> script.sql()
-        .compose(sql -> {
-          int currentChecksum = calculateChecksum(sql);
-          RowIterator<Row> iterator = rowSet.iterator();
-
-          if (!iterator.hasNext()) {
-            long startTime = now();
-            return connection.query(sql).execute()
-              .compose(v -> {
-                MigrationOutput output = MigrationOutputBuilder.builder()
-                  .category(script.category().toString())
-                  .version(script.version())
-                  .description(script.description())
-                  .type("SQL")
-                  .filepath(script.filepath())
-                  .executionTime(millisSince(startTime))
-                  .build();
-                return Future.succeededFuture(new Pair<>(output, currentChecksum));
-              });
-          } else {
-            // Existing migration - verify checksum
-            int storedChecksum = iterator.next().getInteger("checksum");
-            if (storedChecksum != currentChecksum) {
-              return Future.failedFuture(new RuntimeException(
-                "Checksum mismatch for version " + script.version() +
-                  ". Expected " + storedChecksum + " but was " + currentChecksum
-              ));
-            }
-            return Future.succeededFuture(); // Already applied
-          }
-        }));
-  }
-
-  private Future<MigrationOutput> updateHistoryTable(
-    SqlConnection connection,
-    SqlMigrationScript script,
-    MigrationOutput output,
-    int checksum
-  ) {
-    if (script == null) {
+      .execute()
+      .onComplete(roundTrips.one(connection, HISTORY_READ))
+      .compose(rowSet -> {
+        if (rowSet.iterator().next().getLong(0) == 0) {
+          return Future.succeededFuture(SchemaHistory.empty());
+        }
+        return connection.query(SELECT_SCHEMA_HISTORY)
+          .execute()
+          .onComplete(roundTrips.one(connection, HISTORY_READ))
+          .map(SchemaHistory::from);
+      });
+  }
+
+  @Override
+  public Future<MigrationOutput> run(SqlConnection connection, SqlMigrationScript script, int installedRank) {
+    return execute(connection, script)
+      .compose(output -> updateHistoryTable(connection, List.of(new AppliedMigration(installedRank, script, output)))
+        .map(output)
+      );
+  }
+
+  @Override
+  public Future<MigrationOutput> execute(SqlConnection connection, SqlMigrationScript script) {
+    // MySQL has different transaction behavior - DDL causes implicit commit,
+    // so migrations run without a transaction
+    return runMigration(connection, script);
+  }
+
+  private Future<Void> createSchemaHistoryTableIfNotExists(SqlConnection connection) {
+    if (schemaHistoryCreated.get()) {
+      return Future.succeededFuture();
+    }
+    // the statement is idempotent, so it is only skipped once it succeeded
+    return new ClasspathScriptContent(vertx, getClass().getClassLoader(), "mysql_flyway_schema_history_ddl.sql")
+      .readFully()
+      .compose(buffer -> connection.query(buffer.toString()).execute().onComplete(roundTrips.one(connection, HISTORY_WRITE)))
+      .onSuccess(x -> schemaHistoryCreated.set(true))
+      .mapEmpty();
+  }
+
+  private Future<MigrationOutput> runMigration(SqlConnection connection, SqlMigrationScript script) {
+    long startTime = now();
+    long startNanos = nanoTime();
+    return executeStatements(connection, script)
+      .map(x -> {
+        options.getListener().phaseCompleted(MigxListener.Phase.EXECUTE, script.filename(), nanosSince(startNanos));
+        return MigrationOutputBuilder.builder()
+          .category(script.category().toString())
+          .version(script.version())
+          .description(script.description())
+          .type(script.historyType())
+          .filepath(script.filepath())
+          .executionTime(millisSince(startTime))
+          .build();
+      });
+  }
+
+  // the round trips of Java migrations aren't known, as they use the connection directly. Statements of
+  // scripts and data files are counted whether they succeeded or not
+  private Future<Void> executeStatements(SqlConnection connection, SqlMigrationScript script) {
+    if (script.javaMigration() != null) {
+      return script.javaMigration().migrate(connection);
+    }
+    if (script.isDataFile()) {
+      CsvLoader loader = new CsvLoader(connection, MYSQL, options.getDataBatchSize());
+      return loader.load(script.content())
+        .onComplete(x -> roundTrips.count(connection, SCRIPT, loader.statements()));
+    }
+    // statements run outside of a transaction, so a failing statement must not be followed by others
+    StatementPipeline pipeline = new StatementPipeline(connection, 1);
+    return pipeline.execute(script.content(), MYSQL)
+      .onComplete(x -> roundTrips.count(connection, SCRIPT, pipeline.executed()));
+  }
+
+  @Override
+  public Future<Void> updateHistoryTable(SqlConnection connection, List<AppliedMigration> migrations) {
+    if (migrations.isEmpty()) {
       return Future.succeededFuture();
     }
 
     String sql = """
       insert into flyway_schema_history \
       (installed_rank, version, description, type, script, checksum, installed_by, installed_on, execution_time, success) \
-      select coalesce(max(installed_rank), 0) + 1, ?, ?, 'SQL', ?, ?, substring_index(current_user(), '@', 1), ?, ?, TRUE \
-      from flyway_schema_history\
+      values (?, ?, ?, ?, ?, ?, substring_index(current_user(), '@', 1), ?, ?, TRUE)\
       """;
 
-    Tuple tuple = Tuple.of(
-      script.version().isEmpty() ? null : script.version(),
-      script.description(),
-      script.filename(),
-      checksum,
-      LocalDateTime.now(),
-      output.executionTime()
-    );
+    LocalDateTime installedOn = LocalDateTime.now();
+    List<Tuple> tuples = new ArrayList<>(migrations.size());
+    for (AppliedMigration migration : migrations) {
+      SqlMigrationScript script = migration.script();
+      tuples.add(Tuple.of(
+        migration.installedRank(),
+        script.version().isEmpty() ? null : script.version(),
+        script.description(),
+        script.historyType(),
+        script.filename(),
+        script.checksum(),
+        installedOn,
+        migration.output().executionTime()
+      ));
+    }
 
+    // the script is only known if a single entry is written
+    String script = migrations.size() == 1 ? migrations.get(0).script().filename() : null;
+    long startNanos = nanoTime();
     return connection.preparedQuery(sql)
-      .execute(tuple)
-      .map(output);
+      .executeBatch(tuples)
+      .onComplete(result -> {
+        // every entry of the batch is a statement of its own
+        roundTrips.count(connection, HISTORY_WRITE, tuples.size());
+        options.getListener().phaseCompleted(MigxListener.Phase.HISTORY_WRITE, script, nanosSince(startNanos));
+      })
+      .mapEmpty();
+  }
+
+  @Override
+  public void startCounting(SqlConnection connection, RoundTripCounter counter) {
+    roundTrips.startCounting(connection, counter);
+  }
+
+  @Override
+  public void stopCounting(SqlConnection connection) {
+    roundTrips.stopCounting(connection);
   }
 }
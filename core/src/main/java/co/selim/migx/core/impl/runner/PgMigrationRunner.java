@@ -1,7 +1,14 @@
 package co.selim.migx.core.impl.runner;
 
+import co.selim.migx.core.MigxListener;
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.AppliedMigration;
+import co.selim.migx.core.impl.ClasspathScriptContent;
+import co.selim.migx.core.impl.HistoryFingerprint;
+import co.selim.migx.core.impl.SchemaHistory;
 import co.selim.migx.core.impl.SqlMigrationScript;
-import co.selim.migx.core.impl.util.Pair;
+import co.selim.migx.core.impl.util.CsvLoader;
+import co.selim.migx.core.impl.util.StatementPipeline;
 import co.selim.migx.core.output.MigrationOutput;
 import co.selim.migx.core.output.MigrationOutputBuilder;
 import io.vertx.core.Future;
@@ -9,161 +16,290 @@ import io.vertx.core.Vertx;
 import io.vertx.sqlclient.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
-import static co.selim.migx.core.impl.util.Checksums.calculateChecksum;
 import static co.selim.migx.core.impl.util.Clock.millisSince;
+import static co.selim.migx.core.impl.util.Clock.nanoTime;
+import static co.selim.migx.core.impl.util.Clock.nanosSince;
+import static co.selim.migx.core.impl.util.Pools.Implementation.POSTGRES;
 import static co.selim.migx.core.impl.util.Clock.now;
+import static co.selim.migx.core.output.RoundTripKind.HISTORY_READ;
+import static co.selim.migx.core.output.RoundTripKind.HISTORY_WRITE;
+import static co.selim.migx.core.output.RoundTripKind.LOCK;
+import static co.selim.migx.core.output.RoundTripKind.SCHEMA_SWITCH;
+import static co.selim.migx.core.output.RoundTripKind.SCRIPT;
+import static co.selim.migx.core.output.RoundTripKind.TRANSACTION_CONTROL;
 
-public class PgMigrationRunner implements MigrationRunner {
+public class PgMigrationRunner implements GroupMigrationRunner {
 
-  private static final Tuple LOCK_ID = Tuple.of("migx".hashCode());
+  private static final String SELECT_SCHEMA_HISTORY = """
+    select installed_rank, version, type, script, checksum from flyway_schema_history \
+    order by installed_rank\
+    """;
   private final Vertx vertx;
-  private final Pool pool;
+  private final MigxOptions options;
+  private final Tuple lockId;
   private final AtomicBoolean schemaHistoryCreated = new AtomicBoolean(false);
+  private final RoundTripTracker roundTrips;
 
-  public PgMigrationRunner(Vertx vertx, Pool pool) {
+  public PgMigrationRunner(Vertx vertx, MigxOptions options) {
+    this(vertx, options, DEFAULT_LOCK_NAME);
+  }
+
+  public PgMigrationRunner(Vertx vertx, MigxOptions options, String lockName) {
     this.vertx = vertx;
-    this.pool = pool;
+    this.options = options;
+    this.roundTrips = new RoundTripTracker(options);
+    this.lockId = Tuple.of(lockName.hashCode());
   }
 
   @Override
-  public Future<MigrationOutput> run(SqlMigrationScript script) {
-    if (schemaHistoryCreated.compareAndSet(false, true)) {
-      return createSchemaHistoryTableIfNotExists()
-        .compose(x -> doRun(script));
-    } else {
-      return doRun(script);
-    }
+  public Future<Boolean> tryLock(SqlConnection connection) {
+    return connection.preparedQuery("select pg_try_advisory_lock($1)")
+      .execute(lockId)
+      .onComplete(roundTrips.one(connection, LOCK))
+      .map(rowSet -> rowSet.iterator().next().getBoolean(0));
   }
 
-  private Future<MigrationOutput> doRun(SqlMigrationScript script) {
-    return pool.withTransaction(connection ->
-      lock(connection)
-        .compose(x -> switch (script.category()) {
-          case VERSIONED -> runVersionedMigration(connection, script);
-          case REPEATABLE -> runRepeatableMigration(connection, script);
-        })
-        .compose(result ->
-          result == null ?
-            Future.succeededFuture() :
-            updateHistoryTable(connection, script, result.left(), result.right())
-        )
-    );
+  @Override
+  public Future<Void> unlock(SqlConnection connection) {
+    return connection.preparedQuery("select pg_advisory_unlock($1)")
+      .execute(lockId)
+      .onComplete(roundTrips.one(connection, LOCK))
+      .compose(rowSet -> {
+        Boolean released = rowSet.iterator().next().getBoolean(0);
+        if (!Boolean.TRUE.equals(released)) {
+          return Future.failedFuture("Failed to release lock");
+        }
+        return Future.succeededFuture();
+      });
+  }
+
+  // the statement itself fails, as its session is terminated before it completes
+  @Override
+  public Future<Void> endSession(SqlConnection connection) {
+    return connection.query("select pg_terminate_backend(pg_backend_pid())")
+      .execute()
+      .onComplete(roundTrips.one(connection, LOCK))
+      .otherwiseEmpty()
+      .mapEmpty();
   }
 
-  private Future<Void> createSchemaHistoryTableIfNotExists() {
-    return vertx.fileSystem()
-      .readFile("pg_flyway_schema_history_ddl.sql")
-      .compose(buffer -> pool.query(buffer.toString()).execute().mapEmpty());
+  @Override
+  public Future<String> useSchema(SqlConnection connection, String schema) {
+    return connection.preparedQuery("select current_setting('search_path'), set_config('search_path', $1, false)")
+      .execute(Tuple.of(quoteIdentifier(schema)))
+      .onComplete(roundTrips.one(connection, SCHEMA_SWITCH))
+      .map(rowSet -> rowSet.iterator().next().getString(0));
   }
 
-  private Future<Pair<MigrationOutput, Integer>> runRepeatableMigration(SqlConnection connection, SqlMigrationScript script) {
-    return connection.preparedQuery("""
-        select checksum from flyway_schema_history \
-        where script = $1 \
-        order by installed_rank desc \
-        limit 1\
-        """)
-      .execute(Tuple.of(script.filename()))
-      .compose(rowSet -> script.sql()
-        .compose(sql -> {
-          int currentChecksum = calculateChecksum(sql);
-          RowIterator<Row> iterator = rowSet.iterator();
-
-          if (!iterator.hasNext() || iterator.next().getInteger("checksum") != currentChecksum) {
-            long startTime = now();
-            return connection.query(sql).execute()
-              .map(x -> {
-                MigrationOutput output = MigrationOutputBuilder.builder()
-                  .category(script.category().toString())
-                  .version(script.version())
-                  .description(script.description())
-                  .type("SQL")
-                  .filepath(script.filepath())
-                  .executionTime(millisSince(startTime))
-                  .build();
-                return new Pair<>(output, currentChecksum);
-              });
-          } else {
-            return Future.succeededFuture();
-          }
-        }));
-  }
-
-  private Future<Pair<MigrationOutput, Integer>> runVersionedMigration(SqlConnection connection, SqlMigrationScript script) {
-    return connection.preparedQuery("""
-        select checksum from flyway_schema_history \
-        where version = $1\
-        """)
-      .execute(Tuple.of(script.version()))
-      .compose(rowSet -> script.sql()
-        .compose(sql -> {
-          int currentChecksum = calculateChecksum(sql);
-          RowIterator<Row> iterator = rowSet.iterator();
-
-          if (!iterator.hasNext()) {
-            long startTime = now();
-            return connection.query(sql).execute().map(sql)
-              .map(x -> {
-                MigrationOutput output = MigrationOutputBuilder.builder()
-                  .category(script.category().toString())
-                  .version(script.version())
-                  .description(script.description())
-                  .type("SQL")
-                  .filepath(script.filepath())
-                  .executionTime(millisSince(startTime))
-                  .build();
-                return new Pair<>(output, currentChecksum);
-              });
-          } else {
-            // Existing migration - verify checksum
-            int storedChecksum = iterator.next().getInteger("checksum");
-            if (storedChecksum != currentChecksum) {
-              return Future.failedFuture(new RuntimeException(
-                "Checksum mismatch for version " + script.version() +
-                  ". Expected " + storedChecksum + " but was " + currentChecksum
-              ));
-            }
-            return Future.succeededFuture(); // Already applied
-          }
-        }));
-  }
-
-  private Future<Void> lock(SqlConnection connection) {
-    return connection.preparedQuery("select pg_advisory_xact_lock($1)")
-      .execute(LOCK_ID)
+  @Override
+  public Future<Void> restoreSchema(SqlConnection connection, String previousSchema) {
+    return connection.preparedQuery("select set_config('search_path', $1, false)")
+      .execute(Tuple.of(previousSchema))
+      .onComplete(roundTrips.one(connection, SCHEMA_SWITCH))
       .mapEmpty();
   }
 
-  private Future<MigrationOutput> updateHistoryTable(
+  private static String quoteIdentifier(String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+
+  @Override
+  public Future<HistoryFingerprint> loadHistoryFingerprint(SqlConnection connection) {
+    return connection.query("""
+        select count(*) as migration_count, \
+        coalesce(sum(checksum), 0) as checksum_sum, \
+        coalesce(sum(('x' || substr(md5(coalesce(version, script) || ':' || coalesce(checksum, 0)), 1, 8))::bit(32)::bigint), 0) \
+        as name_hash_sum \
+        from flyway_schema_history h \
+        where success and (version is not null or installed_rank = (\
+        select max(installed_rank) from flyway_schema_history r \
+        where r.script = h.script and r.version is null\
+        ))\
+        """)
+      .execute()
+      .onComplete(roundTrips.one(connection, HISTORY_READ))
+      .map(rowSet -> HistoryFingerprint.from(rowSet.iterator().next()));
+  }
+
+  @Override
+  public Future<Integer> loadMaxInstalledRank(SqlConnection connection) {
+    return connection.query("select coalesce(max(installed_rank), 0) from flyway_schema_history")
+      .execute()
+      .onComplete(roundTrips.one(connection, HISTORY_READ))
+      .map(rowSet -> rowSet.iterator().next().getInteger(0));
+  }
+
+  @Override
+  public Future<SchemaHistory> loadSchemaHistory(SqlConnection connection) {
+    return createSchemaHistoryTableIfNotExists(connection)
+      .compose(x -> connection.query(SELECT_SCHEMA_HISTORY).execute().onComplete(roundTrips.one(connection, HISTORY_READ)))
+      .map(SchemaHistory::from);
+  }
+
+  @Override
+  public Future<SchemaHistory> readSchemaHistory(SqlConnection connection) {
+    return connection.query("select to_regclass('flyway_schema_history') is not null")
+      .execute()
+      .onComplete(roundTrips.one(connection, HISTORY_READ))
+      .compose(rowSet -> {
+        if (!Boolean.TRUE.equals(rowSet.iterator().next().getBoolean(0))) {
+          return Future.succeededFuture(SchemaHistory.empty());
+        }
+        return connection.query(SELECT_SCHEMA_HISTORY)
+          .execute()
+          .onComplete(roundTrips.one(connection, HISTORY_READ))
+          .map(SchemaHistory::from);
+      });
+  }
+
+  @Override
+  public Future<MigrationOutput> run(SqlConnection connection, SqlMigrationScript script, int installedRank) {
+    return inTransaction(connection, () ->
+      runMigration(connection, script)
+        .compose(output -> updateHistoryTable(connection, List.of(new AppliedMigration(installedRank, script, output)))
+          .map(output)
+        )
+    );
+  }
+
+  @Override
+  public Future<MigrationOutput> execute(SqlConnection connection, SqlMigrationScript script) {
+    return inTransaction(connection, () -> runMigration(connection, script));
+  }
+
+  @Override
+  public Future<List<MigrationOutput>> runGroup(
     SqlConnection connection,
-    SqlMigrationScript script,
-    MigrationOutput output,
-    int checksum
+    List<SqlMigrationScript> scripts,
+    IntSupplier installedRanks
   ) {
-    if (script == null) {
+    return inTransaction(connection, () -> {
+      List<AppliedMigration> applied = new ArrayList<>(scripts.size());
+      Future<Void> chain = Future.succeededFuture();
+      for (SqlMigrationScript script : scripts) {
+        chain = chain.compose(x -> runMigration(connection, script)
+          .map(output -> {
+            applied.add(new AppliedMigration(installedRanks.getAsInt(), script, output));
+            return null;
+          })
+        );
+      }
+      return chain
+        .compose(x -> updateHistoryTable(connection, applied))
+        .map(x -> applied.stream().map(AppliedMigration::output).toList());
+    });
+  }
+
+  private <T> Future<T> inTransaction(SqlConnection connection, Supplier<Future<T>> work) {
+    return connection.begin()
+      .onComplete(roundTrips.one(connection, TRANSACTION_CONTROL))
+      .compose(transaction -> work.get()
+        .compose(
+          result -> transaction.commit().onComplete(roundTrips.one(connection, TRANSACTION_CONTROL)).map(result),
+          failure -> transaction.rollback().onComplete(roundTrips.one(connection, TRANSACTION_CONTROL)).transform(x -> Future.failedFuture(failure))
+        )
+      );
+  }
+
+  private Future<Void> createSchemaHistoryTableIfNotExists(SqlConnection connection) {
+    if (schemaHistoryCreated.get()) {
+      return Future.succeededFuture();
+    }
+    // the statement is idempotent, so it is only skipped once it succeeded
+    return new ClasspathScriptContent(vertx, getClass().getClassLoader(), "pg_flyway_schema_history_ddl.sql")
+      .readFully()
+      .compose(buffer -> connection.query(buffer.toString()).execute().onComplete(roundTrips.one(connection, HISTORY_WRITE)))
+      .onSuccess(x -> schemaHistoryCreated.set(true))
+      .mapEmpty();
+  }
+
+  private Future<MigrationOutput> runMigration(SqlConnection connection, SqlMigrationScript script) {
+    long startTime = now();
+    long startNanos = nanoTime();
+    return executeStatements(connection, script)
+      .map(x -> {
+        options.getListener().phaseCompleted(MigxListener.Phase.EXECUTE, script.filename(), nanosSince(startNanos));
+        return MigrationOutputBuilder.builder()
+          .category(script.category().toString())
+          .version(script.version())
+          .description(script.description())
+          .type(script.historyType())
+          .filepath(script.filepath())
+          .executionTime(millisSince(startTime))
+          .build();
+      });
+  }
+
+  // the round trips of Java migrations aren't known, as they use the connection directly. Statements of
+  // scripts and data files are counted whether they succeeded or not
+  private Future<Void> executeStatements(SqlConnection connection, SqlMigrationScript script) {
+    if (script.javaMigration() != null) {
+      return script.javaMigration().migrate(connection);
+    }
+    if (script.isDataFile()) {
+      CsvLoader loader = new CsvLoader(connection, POSTGRES, options.getDataBatchSize());
+      return loader.load(script.content())
+        .onComplete(x -> roundTrips.count(connection, SCRIPT, loader.statements()));
+    }
+    StatementPipeline pipeline = new StatementPipeline(connection, options.getMaxStatementsInFlight());
+    return pipeline.execute(script.content(), POSTGRES)
+      .onComplete(x -> roundTrips.count(connection, SCRIPT, pipeline.executed()));
+  }
+
+  @Override
+  public Future<Void> updateHistoryTable(SqlConnection connection, List<AppliedMigration> migrations) {
+    if (migrations.isEmpty()) {
       return Future.succeededFuture();
     }
 
     String sql = """
       insert into flyway_schema_history \
       (installed_rank, version, description, type, script, checksum, installed_by, installed_on, execution_time, success) \
-      select coalesce(max(installed_rank), 0) + 1, $1, $2, 'SQL', $3, $4, current_user, $5, $6, TRUE \
-      from flyway_schema_history\
+      values ($1, $2, $3, $4, $5, $6, current_user, $7, $8, TRUE)\
       """;
 
-    Tuple tuple = Tuple.of(
-      script.version().isEmpty() ? null : script.version(),
-      script.description(),
-      script.filename(),
-      checksum,
-      LocalDateTime.now(),
-      output.executionTime()
-    );
+    LocalDateTime installedOn = LocalDateTime.now();
+    List<Tuple> tuples = new ArrayList<>(migrations.size());
+    for (AppliedMigration migration : migrations) {
+      SqlMigrationScript script = migration.script();
+      tuples.add(Tuple.of(
+        migration.installedRank(),
+        script.version().isEmpty() ? null : script.version(),
+        script.description(),
+        script.historyType(),
+        script.filename(),
+        script.checksum(),
+        installedOn,
+        migration.output().executionTime()
+      ));
+    }
 
+    // the script is only known if a single entry is written
+    String script = migrations.size() == 1 ? migrations.get(0).script().filename() : null;
+    long startNanos = nanoTime();
     return connection.preparedQuery(sql)
-      .execute(tuple)
-      .map(output);
+      .executeBatch(tuples)
+      .onComplete(result -> {
+        // every entry of the batch is a statement of its own
+        roundTrips.count(connection, HISTORY_WRITE, tuples.size());
+        options.getListener().phaseCompleted(MigxListener.Phase.HISTORY_WRITE, script, nanosSince(startNanos));
+      })
+      .mapEmpty();
+  }
+
+  @Override
+  public void startCounting(SqlConnection connection, RoundTripCounter counter) {
+    roundTrips.startCounting(connection, counter);
+  }
+
+  @Override
+  public void stopCounting(SqlConnection connection) {
+    roundTrips.stopCounting(connection);
   }
 }
@@ -0,0 +1,29 @@
+package co.selim.migx.core.impl.runner;
+
+import co.selim.migx.core.output.RoundTripKind;
+import co.selim.migx.core.output.RoundTrips;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Counts the round trips of a single run, which can use several connections at once.
+ */
+public final class RoundTripCounter {
+
+  private final AtomicIntegerArray counts = new AtomicIntegerArray(RoundTripKind.values().length);
+
+  public void add(RoundTripKind kind, int count) {
+    counts.addAndGet(kind.ordinal(), count);
+  }
+
+  public RoundTrips toRoundTrips() {
+    return new RoundTrips(
+      counts.get(RoundTripKind.LOCK.ordinal()),
+      counts.get(RoundTripKind.HISTORY_READ.ordinal()),
+      counts.get(RoundTripKind.SCRIPT.ordinal()),
+      counts.get(RoundTripKind.HISTORY_WRITE.ordinal()),
+      counts.get(RoundTripKind.TRANSACTION_CONTROL.ordinal()),
+      counts.get(RoundTripKind.SCHEMA_SWITCH.ordinal())
+    );
+  }
+}
@@ -0,0 +1,46 @@
+package co.selim.migx.core.impl.runner;
+
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.output.RoundTripKind;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports the round trips of a runner to the listener and to the counter of the run a connection belongs to.
+ */
+final class RoundTripTracker {
+
+  private final MigxOptions options;
+  private final Map<SqlConnection, RoundTripCounter> counters = new ConcurrentHashMap<>();
+
+  RoundTripTracker(MigxOptions options) {
+    this.options = options;
+  }
+
+  void startCounting(SqlConnection connection, RoundTripCounter counter) {
+    counters.put(connection, counter);
+  }
+
+  void stopCounting(SqlConnection connection) {
+    counters.remove(connection);
+  }
+
+  void count(SqlConnection connection, RoundTripKind kind, int count) {
+    options.getListener().roundTrips(kind, count);
+    RoundTripCounter counter = counters.get(connection);
+    if (counter != null) {
+      counter.add(kind, count);
+    }
+  }
+
+  /**
+   * Counts a single round trip once it completed, whether it succeeded or not.
+   */
+  <T> Handler<AsyncResult<T>> one(SqlConnection connection, RoundTripKind kind) {
+    return result -> count(connection, kind, 1);
+  }
+}
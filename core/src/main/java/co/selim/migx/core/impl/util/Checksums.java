@@ -1,9 +1,7 @@
 package co.selim.migx.core.impl.util;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
-import java.nio.charset.StandardCharsets;
+import io.vertx.core.buffer.Buffer;
+
 import java.util.zip.CRC32;
 
 public final class Checksums {
@@ -11,18 +9,76 @@ public final class Checksums {
   private Checksums() {
   }
 
-  public static int calculateChecksum(String input) {
-    CRC32 crc32 = new CRC32();
+  public static int calculateChecksum(Buffer content) {
+    Calculator calculator = new Calculator();
+    calculator.update(content);
+    return calculator.checksum();
+  }
+
+  /**
+   * Computes Flyway's checksum, the CRC32 of the UTF-8 bytes of every line without its terminator and
+   * without a leading byte order mark, directly on the bytes of the script. Empty lines don't change a
+   * CRC32, so this is the same as skipping all {@code \r} and {@code \n} bytes, which never occur
+   * inside of multibyte UTF-8 sequences.
+   */
+  public static final class Calculator {
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final int SCRATCH_SIZE = 8 * 1024;
+
+    private final CRC32 crc32 = new CRC32();
+    private final byte[] scratch = new byte[SCRATCH_SIZE];
+    // number of leading bytes that matched the BOM so far, BOM.length once the start has been checked
+    private int bomPosition;
+
+    public void update(Buffer chunk) {
+      int length = chunk.length();
+      for (int offset = 0; offset < length; offset += SCRATCH_SIZE) {
+        int end = Math.min(length, offset + SCRATCH_SIZE);
+        chunk.getBytes(offset, end, scratch, 0);
+        update(scratch, 0, end - offset);
+      }
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+      int end = offset + length;
+      int i = bomPosition < BOM.length ? skipBom(bytes, offset, end) : offset;
+      int lineStart = i;
+      for (; i < end; i++) {
+        byte b = bytes[i];
+        if (b == '\n' || b == '\r') {
+          if (i > lineStart) {
+            crc32.update(bytes, lineStart, i - lineStart);
+          }
+          lineStart = i + 1;
+        }
+      }
+      if (end > lineStart) {
+        crc32.update(bytes, lineStart, end - lineStart);
+      }
+    }
 
-    try (BufferedReader reader = new BufferedReader(new StringReader(input))) {
-      String line;
-      while ((line = reader.readLine()) != null) {
-        crc32.update(line.getBytes(StandardCharsets.UTF_8));
+    public int checksum() {
+      if (bomPosition < BOM.length) {
+        // the input is shorter than a BOM, but started like one
+        crc32.update(BOM, 0, bomPosition);
+        bomPosition = BOM.length;
       }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+      return (int) crc32.getValue();
     }
 
-    return (int) crc32.getValue();
+    private int skipBom(byte[] bytes, int offset, int end) {
+      int i = offset;
+      while (bomPosition < BOM.length && i < end) {
+        if (bytes[i] != BOM[bomPosition]) {
+          crc32.update(BOM, 0, bomPosition);
+          bomPosition = BOM.length;
+          return i;
+        }
+        bomPosition++;
+        i++;
+      }
+      return i;
+    }
   }
 }
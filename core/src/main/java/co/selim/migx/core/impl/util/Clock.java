@@ -12,4 +12,12 @@ public final class Clock {
   public static long millisSince(long time) {
     return now() - time;
   }
+
+  public static long nanoTime() {
+    return System.nanoTime();
+  }
+
+  public static long nanosSince(long nanoTime) {
+    return nanoTime() - nanoTime;
+  }
 }
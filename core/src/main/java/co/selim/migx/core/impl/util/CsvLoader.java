@@ -0,0 +1,175 @@
+package co.selim.migx.core.impl.util;
+
+import co.selim.migx.core.impl.ScriptContent;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Loads a CSV data file into a table. The first line names the table, e.g. {@code # table: countries},
+ * followed by a header with the column names and the rows.
+ * <p>
+ * Rows are inserted with a single prepared statement in batches of {@code batchSize}. The next chunk is only
+ * read once the batches of the previous one were inserted, so that only a chunk and its batches are kept in
+ * memory. On PostgreSQL, rows are passed as JSON and converted to the column types by the database, as
+ * parameters of other types than the column's are rejected. The JSON keys are lowercased like the unquoted
+ * column names they need to match. MySQL converts the strings itself.
+ */
+public final class CsvLoader {
+
+  private static final Pattern TABLE = Pattern.compile("#\\s*table\\s*:\\s*(\\S+)\\s*");
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+
+  private final SqlConnection connection;
+  private final Pools.Implementation dialect;
+  private final int batchSize;
+  private String table;
+  private List<String> columns;
+  private List<String> jsonKeys;
+  private String insert;
+  private List<Tuple> batch;
+  private Future<Void> inserted = Future.succeededFuture();
+  private int rows;
+  private int statements;
+
+  public CsvLoader(SqlConnection connection, Pools.Implementation dialect, int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.connection = connection;
+    this.dialect = dialect;
+    this.batchSize = batchSize;
+    this.batch = new ArrayList<>(batchSize);
+  }
+
+  /**
+   * Once the returned future completed, {@link #statements()} counts every row that was sent, whether the
+   * file was loaded or not.
+   */
+  public Future<Void> load(ScriptContent content) {
+    CsvParser parser = new CsvParser();
+    Utf8ChunkDecoder decoder = new Utf8ChunkDecoder();
+    return content
+      .read(chunk -> {
+        try {
+          parser.feed(decoder.decode(chunk), this::accept);
+        } catch (RuntimeException e) {
+          return Future.failedFuture(e);
+        }
+        return inserted;
+      })
+      .compose(x -> {
+        try {
+          parser.feed(decoder.finish(), this::accept);
+          parser.finish(this::accept);
+          flush();
+        } catch (RuntimeException e) {
+          return Future.failedFuture(e);
+        }
+        if (columns == null) {
+          return Future.failedFuture(new IllegalArgumentException("Data file without a header"));
+        }
+        return inserted;
+      })
+      // batches that were already sent are waited for, so that they are counted
+      .transform(result -> inserted.transform(x -> result.succeeded() ? Future.<Void>succeededFuture() : Future.failedFuture(result.cause())));
+  }
+
+  /**
+   * @return the number of rows that were sent, each of which is a statement of its batch
+   */
+  public int statements() {
+    return statements;
+  }
+
+  private void accept(List<String> record) {
+    if (table == null) {
+      table = parseTable(record);
+    } else if (columns == null) {
+      columns = parseColumns(record);
+      jsonKeys = columns.stream().map(column -> column.toLowerCase(Locale.ROOT)).toList();
+      insert = insertStatement();
+    } else {
+      rows++;
+      if (record.size() != columns.size()) {
+        throw new IllegalArgumentException(
+          "Row " + rows + " has " + record.size() + " fields, but the header has " + columns.size()
+        );
+      }
+      batch.add(tuple(record));
+      if (batch.size() == batchSize) {
+        flush();
+      }
+    }
+  }
+
+  private void flush() {
+    if (batch.isEmpty()) {
+      return;
+    }
+    List<Tuple> tuples = batch;
+    batch = new ArrayList<>(batchSize);
+    inserted = inserted.compose(x -> {
+      statements += tuples.size();
+      return connection.preparedQuery(insert).executeBatch(tuples).mapEmpty();
+    });
+  }
+
+  private Tuple tuple(List<String> record) {
+    if (dialect == Pools.Implementation.MYSQL) {
+      return Tuple.wrap(record);
+    }
+    Map<String, Object> row = new LinkedHashMap<>();
+    for (int i = 0; i < columns.size(); i++) {
+      row.put(jsonKeys.get(i), record.get(i));
+    }
+    return Tuple.of(new JsonObject(row));
+  }
+
+  private String insertStatement() {
+    String columnList = String.join(", ", columns);
+    return switch (dialect) {
+      case POSTGRES -> "insert into " + table + " (" + columnList + ") " +
+        "select " + columnList + " from json_populate_record(null::" + table + ", $1)";
+      case MYSQL -> "insert into " + table + " (" + columnList + ") " +
+        "values (" + String.join(", ", columns.stream().map(column -> "?").toList()) + ")";
+    };
+  }
+
+  // names end up in the insert statement, so only plain identifiers are accepted
+  private static String parseTable(List<String> record) {
+    Matcher matcher = record.size() == 1 && record.getFirst() != null ? TABLE.matcher(record.getFirst()) : null;
+    if (matcher == null || !matcher.matches()) {
+      throw new IllegalArgumentException("Data files must start with the target table, e.g. # table: countries");
+    }
+    String table = matcher.group(1);
+    for (String part : table.split("\\.", -1)) {
+      requireIdentifier(part);
+    }
+    return table;
+  }
+
+  private static List<String> parseColumns(List<String> record) {
+    List<String> columns = new ArrayList<>(record.size());
+    for (String column : record) {
+      columns.add(requireIdentifier(column == null ? "" : column.strip()));
+    }
+    return columns;
+  }
+
+  private static String requireIdentifier(String name) {
+    if (!IDENTIFIER.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid identifier in data file header: " + name);
+    }
+    return name;
+  }
+}
@@ -0,0 +1,108 @@
+package co.selim.migx.core.impl.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Parses CSV as described in RFC 4180. Input can be fed in arbitrary chunks, records are emitted as soon as
+ * their line ended, so only the current record is buffered.
+ * <p>
+ * Fields can be quoted to contain commas, line breaks and doubled quotes. Empty lines are skipped and empty
+ * unquoted fields are {@code null}, so that they can be told apart from quoted empty strings.
+ */
+public class CsvParser {
+
+  private enum State {
+    FIELD_START,
+    UNQUOTED,
+    QUOTED,
+    QUOTE_IN_QUOTED
+  }
+
+  private final StringBuilder field = new StringBuilder();
+  private List<String> record = new ArrayList<>();
+  private State state = State.FIELD_START;
+  private boolean quoted;
+  private boolean carriageReturn;
+
+  public static List<List<String>> parse(CharSequence csv) {
+    List<List<String>> records = new ArrayList<>();
+    CsvParser parser = new CsvParser();
+    parser.feed(csv, records::add);
+    parser.finish(records::add);
+    return records;
+  }
+
+  public void feed(CharSequence chunk, Consumer<List<String>> recordConsumer) {
+    for (int i = 0; i < chunk.length(); i++) {
+      char c = chunk.charAt(i);
+      // the line feed of a CRLF has already been handled by its carriage return
+      boolean lineFeedAfterCarriageReturn = carriageReturn && c == '\n';
+      carriageReturn = c == '\r';
+      if (lineFeedAfterCarriageReturn && state != State.QUOTED) {
+        continue;
+      }
+      switch (state) {
+        case FIELD_START, UNQUOTED -> {
+          if (c == '"' && state == State.FIELD_START) {
+            state = State.QUOTED;
+            quoted = true;
+          } else if (c == ',') {
+            endField();
+          } else if (c == '\n' || c == '\r') {
+            endRecord(recordConsumer);
+          } else {
+            field.append(c);
+            state = State.UNQUOTED;
+          }
+        }
+        case QUOTED -> {
+          if (c == '"') {
+            state = State.QUOTE_IN_QUOTED;
+          } else {
+            field.append(c);
+          }
+        }
+        case QUOTE_IN_QUOTED -> {
+          if (c == '"') {
+            field.append('"');
+            state = State.QUOTED;
+          } else if (c == ',') {
+            endField();
+          } else if (c == '\n' || c == '\r') {
+            endRecord(recordConsumer);
+          } else {
+            throw new IllegalArgumentException("Unexpected character after closing quote: " + c);
+          }
+        }
+      }
+    }
+  }
+
+  public void finish(Consumer<List<String>> recordConsumer) {
+    if (state == State.QUOTED) {
+      throw new IllegalArgumentException("Unterminated quoted field");
+    }
+    endRecord(recordConsumer);
+  }
+
+  private void endField() {
+    record.add(field.isEmpty() && !quoted ? null : field.toString());
+    field.setLength(0);
+    quoted = false;
+    state = State.FIELD_START;
+  }
+
+  private void endRecord(Consumer<List<String>> recordConsumer) {
+    boolean emptyLine = record.isEmpty() && field.isEmpty() && !quoted;
+    if (emptyLine) {
+      state = State.FIELD_START;
+      return;
+    }
+    endField();
+    List<String> completed = record;
+    record = new ArrayList<>(completed.size());
+    recordConsumer.accept(completed);
+  }
+}
@@ -0,0 +1,93 @@
+package co.selim.migx.core.impl.util;
+
+import co.selim.migx.core.impl.MigrationVersion;
+import co.selim.migx.core.impl.SqlMigrationScript;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders migration paths: baseline migrations by version, followed by versioned migrations by version and
+ * repeatable migrations.
+ * Every path is parsed once into a sort key, instead of on every comparison. Resolved scripts, such as Java
+ * migrations, can be ordered the same way.
+ */
+public final class MigrationOrder {
+
+  private static final String VERSION_SEPARATOR = "__";
+  private static final Comparator<SortKey<?>> COMPARATOR = Comparator
+    .<SortKey<?>>comparingInt(SortKey::categoryOrder)
+    .thenComparing(SortKey::version, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  private MigrationOrder() {
+  }
+
+  private record SortKey<T>(T migration, int categoryOrder, MigrationVersion version) {
+
+    static SortKey<String> of(String path) {
+      String filename = Paths.getFilename(path);
+      int categoryOrder = getTypeOrder(Paths.getCategoryFromFilename(filename));
+      return new SortKey<>(path, categoryOrder, extractVersion(filename, categoryOrder));
+    }
+
+    static SortKey<SqlMigrationScript> of(SqlMigrationScript script) {
+      int categoryOrder = switch (script.category()) {
+        case BASELINE -> 0;
+        case VERSIONED -> 1;
+        case REPEATABLE -> 2;
+      };
+      MigrationVersion version = categoryOrder == 2 ? null : MigrationVersion.parse(script.version());
+      return new SortKey<>(script, categoryOrder, version);
+    }
+  }
+
+  public static List<String> sort(List<String> paths) {
+    List<SortKey<String>> keys = new ArrayList<>(paths.size());
+    for (String path : paths) {
+      keys.add(SortKey.of(path));
+    }
+    return sortKeys(keys);
+  }
+
+  public static List<SqlMigrationScript> sortScripts(List<SqlMigrationScript> scripts) {
+    List<SortKey<SqlMigrationScript>> keys = new ArrayList<>(scripts.size());
+    for (SqlMigrationScript script : scripts) {
+      keys.add(SortKey.of(script));
+    }
+    return sortKeys(keys);
+  }
+
+  private static <T> List<T> sortKeys(List<SortKey<T>> keys) {
+    keys.sort(COMPARATOR);
+
+    List<T> sorted = new ArrayList<>(keys.size());
+    SortKey<T> previous = null;
+    for (SortKey<T> key : keys) {
+      // a baseline usually has the version of the last versioned migration it covers
+      if (previous != null && key.version() != null && key.categoryOrder() == previous.categoryOrder() &&
+        key.version().equals(previous.version())) {
+        throw new IllegalStateException("Found more than one migration with version " + previous.version());
+      }
+      sorted.add(key.migration());
+      previous = key;
+    }
+    return sorted;
+  }
+
+  private static int getTypeOrder(char type) {
+    return switch (type) {
+      case 'B' -> 0;
+      case 'V' -> 1;
+      case 'R' -> 2;
+      default -> throw new IllegalArgumentException("Unsupported migration type: " + type);
+    };
+  }
+
+  private static MigrationVersion extractVersion(String filename, int categoryOrder) {
+    if (categoryOrder != 2 && filename.indexOf(VERSION_SEPARATOR) > 1) {
+      return MigrationVersion.parse(Paths.getVersionFromFilename(filename));
+    }
+    return null; // No version for Repeatable migrations or invalid format
+  }
+}
@@ -24,7 +24,8 @@ public final class Paths {
     return filename.substring(1, filename.indexOf(VERSION_SEPARATOR));
   }
 
+  // classpath paths are always separated by slashes
   public static String getFilename(String path) {
-    return path.substring(path.lastIndexOf(File.separatorChar) + 1);
+    return path.substring(Math.max(path.lastIndexOf(File.separatorChar), path.lastIndexOf('/')) + 1);
   }
 }
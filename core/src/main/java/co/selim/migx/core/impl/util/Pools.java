@@ -1,6 +1,7 @@
 package co.selim.migx.core.impl.util;
 
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnectOptions;
 import io.vertx.sqlclient.internal.pool.CloseablePool;
 
 import static co.selim.migx.core.impl.util.Pools.Implementation.MYSQL;
@@ -23,6 +24,17 @@ public final class Pools {
     }
   }
 
+  public static Implementation identify(SqlConnectOptions connectOptions) {
+    String className = connectOptions.getClass().getName();
+    if (className.contains("MySQLConnectOptions")) {
+      return MYSQL;
+    }
+    if (className.contains("PgConnectOptions")) {
+      return POSTGRES;
+    }
+    throw new IllegalArgumentException("Unknown connect options implementation: " + className);
+  }
+
   private static Implementation identifyCloseablePool(String className) {
     if (className.contains("MySQLDriver")) {
       return MYSQL;
@@ -0,0 +1,285 @@
+package co.selim.migx.core.impl.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits scripts into single statements. Input can be fed in arbitrary chunks, statements are
+ * emitted as soon as their delimiter has been read, so only the current statement is buffered.
+ * <p>
+ * Understands string literals, quoted identifiers, line and block comments on both dialects,
+ * dollar quoting and {@code BEGIN ATOMIC} bodies on PostgreSQL and the {@code DELIMITER}
+ * command, backslash escapes, {@code #} comments and backticks on MySQL.
+ */
+public class SqlStatementSplitter {
+
+  private static final String DEFAULT_DELIMITER = ";";
+  private static final String DELIMITER_COMMAND = "DELIMITER";
+
+  private enum State {
+    NORMAL,
+    SINGLE_QUOTE,
+    DOUBLE_QUOTE,
+    BACKTICK,
+    LINE_COMMENT,
+    BLOCK_COMMENT,
+    DOLLAR_TAG,
+    DOLLAR_QUOTE,
+    DELIMITER_COMMAND
+  }
+
+  private final Pools.Implementation dialect;
+  private final StringBuilder statement = new StringBuilder();
+  private final StringBuilder word = new StringBuilder();
+  private String delimiter = DEFAULT_DELIMITER;
+  private State state = State.NORMAL;
+  // index of the first character that is neither whitespace nor part of a comment
+  private int contentStart = -1;
+  private int lineStart;
+  private boolean backslashEscapes;
+  private boolean escapeNext;
+  private int blockCommentDepth;
+  private int blockCommentStart;
+  private int dollarTagStart;
+  private String dollarTag;
+  private String previousWord = "";
+  private int atomicDepth;
+
+  public SqlStatementSplitter(Pools.Implementation dialect) {
+    this.dialect = dialect;
+  }
+
+  public static List<String> split(Pools.Implementation dialect, CharSequence sql) {
+    List<String> statements = new ArrayList<>();
+    SqlStatementSplitter splitter = new SqlStatementSplitter(dialect);
+    splitter.feed(sql, statements::add);
+    splitter.finish(statements::add);
+    return statements;
+  }
+
+  public void feed(CharSequence chunk, Consumer<String> statements) {
+    for (int i = 0; i < chunk.length(); i++) {
+      accept(chunk.charAt(i), statements);
+    }
+  }
+
+  public void finish(Consumer<String> statements) {
+    endWord();
+    if (state == State.DELIMITER_COMMAND) {
+      applyDelimiterCommand();
+    } else {
+      emit(statement.length(), statements);
+    }
+  }
+
+  private void accept(char c, Consumer<String> statements) {
+    statement.append(c);
+    int index = statement.length() - 1;
+    char previous = charAt(index - 1);
+    switch (state) {
+      case NORMAL -> acceptNormal(c, previous, index, statements);
+      case SINGLE_QUOTE -> acceptQuoted(c, '\'');
+      case DOUBLE_QUOTE -> acceptQuoted(c, '"');
+      case BACKTICK -> {
+        if (c == '`') state = State.NORMAL;
+      }
+      case LINE_COMMENT -> {
+        if (c == '\n') state = State.NORMAL;
+      }
+      case BLOCK_COMMENT -> acceptBlockComment(c, previous, index);
+      case DOLLAR_TAG -> acceptDollarTag(c, previous, index, statements);
+      case DOLLAR_QUOTE -> {
+        if (c == '$' && index + 1 - dollarTag.length() >= dollarTagStart + dollarTag.length() && endsWith(dollarTag)) {
+          state = State.NORMAL;
+        }
+      }
+      case DELIMITER_COMMAND -> {
+        if (c == '\n') applyDelimiterCommand();
+      }
+    }
+    if (c == '\n') {
+      lineStart = statement.length();
+    }
+  }
+
+  private void acceptNormal(char c, char previous, int index, Consumer<String> statements) {
+    if (isWordChar(c)) {
+      word.append(c);
+    } else {
+      endWord();
+    }
+
+    boolean mysql = dialect == Pools.Implementation.MYSQL;
+    switch (c) {
+      case '\'' -> {
+        state = State.SINGLE_QUOTE;
+        // PostgreSQL only supports backslash escapes in E'...' strings
+        backslashEscapes = mysql || ((previous == 'E' || previous == 'e') && !isWordChar(charAt(index - 2)));
+      }
+      case '"' -> {
+        state = State.DOUBLE_QUOTE;
+        backslashEscapes = mysql;
+      }
+      case '`' -> {
+        if (mysql) state = State.BACKTICK;
+      }
+      case '#' -> {
+        if (mysql) startComment(State.LINE_COMMENT, index);
+      }
+      case '-' -> {
+        if (!mysql && previous == '-') startComment(State.LINE_COMMENT, index - 1);
+      }
+      case '*' -> {
+        if (previous == '/') {
+          startComment(State.BLOCK_COMMENT, index - 1);
+          blockCommentDepth = 1;
+          blockCommentStart = index + 1;
+        }
+      }
+      case '$' -> {
+        if (!mysql && !isWordChar(previous)) {
+          state = State.DOLLAR_TAG;
+          dollarTagStart = index;
+        }
+      }
+      default -> {
+        if (Character.isWhitespace(c) && mysql) {
+          // MySQL requires whitespace after a double dash
+          if (previous == '-' && charAt(index - 2) == '-') {
+            startComment(c == '\n' ? State.NORMAL : State.LINE_COMMENT, index - 2);
+          } else if (isDelimiterCommand(index)) {
+            state = State.DELIMITER_COMMAND;
+            if (c == '\n') {
+              applyDelimiterCommand();
+            }
+            return;
+          }
+        }
+      }
+    }
+
+    if (contentStart < 0 && !Character.isWhitespace(c) && state != State.LINE_COMMENT && state != State.BLOCK_COMMENT) {
+      contentStart = index;
+    }
+    if (state == State.NORMAL && atomicDepth == 0 && endsWith(delimiter)) {
+      emit(statement.length() - delimiter.length(), statements);
+    }
+  }
+
+  private void startComment(State commentState, int commentStart) {
+    state = commentState;
+    if (contentStart >= commentStart) {
+      contentStart = -1;
+    }
+  }
+
+  private void acceptQuoted(char c, char quote) {
+    if (escapeNext) {
+      escapeNext = false;
+    } else if (c == '\\' && backslashEscapes) {
+      escapeNext = true;
+    } else if (c == quote) {
+      state = State.NORMAL;
+    }
+  }
+
+  private void acceptBlockComment(char c, char previous, int index) {
+    if (c == '/' && previous == '*' && index - 1 >= blockCommentStart) {
+      if (--blockCommentDepth == 0) {
+        state = State.NORMAL;
+      }
+    } else if (c == '*' && previous == '/' && dialect == Pools.Implementation.POSTGRES) {
+      // PostgreSQL supports nested block comments
+      blockCommentDepth++;
+    }
+  }
+
+  private void acceptDollarTag(char c, char previous, int index, Consumer<String> statements) {
+    if (c == '$') {
+      dollarTag = statement.substring(dollarTagStart);
+      state = State.DOLLAR_QUOTE;
+    } else if (!isWordChar(c) || (Character.isDigit(c) && index - 1 == dollarTagStart)) {
+      // not a dollar quote, e.g. a positional parameter
+      state = State.NORMAL;
+      acceptNormal(c, previous, index, statements);
+    }
+  }
+
+  private void endWord() {
+    if (word.isEmpty()) {
+      return;
+    }
+    String current = word.toString().toUpperCase(Locale.ROOT);
+    word.setLength(0);
+    if (dialect == Pools.Implementation.POSTGRES) {
+      if (current.equals("ATOMIC") && previousWord.equals("BEGIN")) {
+        atomicDepth++;
+      } else if (atomicDepth > 0 && current.equals("CASE")) {
+        atomicDepth++;
+      } else if (atomicDepth > 0 && current.equals("END")) {
+        atomicDepth--;
+      }
+    }
+    previousWord = current;
+  }
+
+  // DELIMITER is a client command that has to be the only thing on its line
+  private boolean isDelimiterCommand(int index) {
+    boolean contentBeforeLine = contentStart >= 0 && contentStart < lineStart;
+    return !contentBeforeLine && statement.substring(lineStart, index).strip().equalsIgnoreCase(DELIMITER_COMMAND);
+  }
+
+  private void applyDelimiterCommand() {
+    String line = statement.substring(lineStart).strip();
+    String newDelimiter = line.substring(DELIMITER_COMMAND.length()).strip();
+    if (newDelimiter.isEmpty()) {
+      throw new IllegalArgumentException("Missing delimiter after DELIMITER command");
+    }
+    delimiter = newDelimiter;
+    reset();
+  }
+
+  private void emit(int end, Consumer<String> statements) {
+    if (contentStart >= 0) {
+      String sql = statement.substring(0, end).strip();
+      if (!sql.isEmpty()) {
+        statements.accept(sql);
+      }
+    }
+    reset();
+  }
+
+  private void reset() {
+    statement.setLength(0);
+    word.setLength(0);
+    state = State.NORMAL;
+    contentStart = -1;
+    lineStart = 0;
+    escapeNext = false;
+    previousWord = "";
+    atomicDepth = 0;
+  }
+
+  private boolean endsWith(String suffix) {
+    int offset = statement.length() - suffix.length();
+    if (offset < 0) {
+      return false;
+    }
+    for (int i = 0; i < suffix.length(); i++) {
+      if (statement.charAt(offset + i) != suffix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private char charAt(int index) {
+    return index >= 0 ? statement.charAt(index) : 0;
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+}
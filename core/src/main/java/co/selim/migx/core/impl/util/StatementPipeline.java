@@ -0,0 +1,170 @@
+package co.selim.migx.core.impl.util;
+
+import co.selim.migx.core.impl.ScriptContent;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Sends statements without waiting for the previous ones to complete, keeping at most
+ * {@code maxInFlight} of them in flight. Statements are executed in order and the
+ * execution stops at the first failure, which is only reported once the statements that were
+ * already in flight completed.
+ */
+public final class StatementPipeline {
+
+  private final SqlConnection connection;
+  private final int maxInFlight;
+  private final Queue<String> queued = new ArrayDeque<>();
+  private final Promise<Void> promise = Promise.promise();
+  private Promise<Void> drained;
+  private Throwable failure;
+  private int inFlight;
+  private int executed;
+  private boolean ended;
+  private boolean filling;
+
+  public StatementPipeline(SqlConnection connection, int maxInFlight) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+    }
+    this.connection = connection;
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   * Streams the script through the statement splitter into the pipeline, only reading the next chunk once
+   * the pipeline has capacity again, so that only a chunk and the statements in flight are kept in memory.
+   * Once the returned future completed, {@link #executed()} counts every statement that was sent, whether
+   * the script succeeded or not.
+   */
+  public Future<Void> execute(ScriptContent content, Pools.Implementation dialect) {
+    SqlStatementSplitter splitter = new SqlStatementSplitter(dialect);
+    Utf8ChunkDecoder decoder = new Utf8ChunkDecoder();
+    return content
+      .read(chunk -> {
+        try {
+          splitter.feed(decoder.decode(chunk), this::send);
+        } catch (RuntimeException e) {
+          return Future.failedFuture(e);
+        }
+        return ready();
+      })
+      .compose(x -> {
+        try {
+          splitter.feed(decoder.finish(), this::send);
+          splitter.finish(this::send);
+        } catch (RuntimeException e) {
+          return Future.failedFuture(e);
+        }
+        return end();
+      })
+      .transform(result -> {
+        if (result.failed()) {
+          fail(result.cause());
+        }
+        return promise.future();
+      });
+  }
+
+  public int executed() {
+    return executed;
+  }
+
+  public void send(String statement) {
+    if (ended) {
+      throw new IllegalStateException("Pipeline has already ended");
+    }
+    if (failure == null) {
+      queued.add(statement);
+      fill();
+    }
+  }
+
+  /**
+   * Completes once fewer than {@code maxInFlight} statements are queued or in flight and fails as soon as a statement failed.
+   */
+  public Future<Void> ready() {
+    if (failure != null) {
+      return Future.failedFuture(failure);
+    }
+    if (!isFull()) {
+      return Future.succeededFuture();
+    }
+    if (drained == null) {
+      drained = Promise.promise();
+    }
+    return drained.future();
+  }
+
+  /**
+   * Completes once all statements sent so far succeeded.
+   */
+  public Future<Void> end() {
+    ended = true;
+    fill();
+    return promise.future();
+  }
+
+  private boolean isFull() {
+    return queued.size() + inFlight >= maxInFlight;
+  }
+
+  private void fill() {
+    // statements can complete synchronously, which must not recurse into fill
+    if (filling) {
+      return;
+    }
+    filling = true;
+    try {
+      while (failure == null && inFlight < maxInFlight && !queued.isEmpty()) {
+        inFlight++;
+        connection.query(queued.poll())
+          .execute()
+          .onComplete(result -> {
+            inFlight--;
+            executed++;
+            if (result.failed()) {
+              fail(result.cause());
+            } else {
+              fill();
+            }
+          });
+      }
+      if (inFlight == 0 && failure != null) {
+        promise.tryFail(failure);
+      } else if (ended && inFlight == 0 && queued.isEmpty()) {
+        promise.tryComplete();
+      }
+    } catch (RuntimeException e) {
+      // the statement that couldn't be sent won't complete
+      inFlight--;
+      fail(e);
+    } finally {
+      filling = false;
+    }
+    if (drained != null && !isFull()) {
+      Promise<Void> ready = drained;
+      drained = null;
+      ready.tryComplete();
+    }
+  }
+
+  private void fail(Throwable cause) {
+    if (failure == null) {
+      failure = cause;
+    }
+    queued.clear();
+    if (inFlight == 0) {
+      promise.tryFail(failure);
+    }
+    if (drained != null) {
+      Promise<Void> ready = drained;
+      drained = null;
+      ready.tryFail(failure);
+    }
+  }
+}
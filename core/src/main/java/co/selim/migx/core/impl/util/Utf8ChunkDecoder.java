@@ -0,0 +1,49 @@
+package co.selim.migx.core.impl.util;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes UTF-8 chunks whose boundaries may split multibyte characters, keeping the incomplete
+ * bytes for the next chunk. Malformed input is replaced, just like {@link Buffer#toString()} does,
+ * and a leading byte order mark is dropped, like Flyway does.
+ */
+public final class Utf8ChunkDecoder {
+
+  private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private ByteBuffer remaining = ByteBuffer.allocate(0);
+  private boolean started;
+
+  public CharSequence decode(Buffer chunk) {
+    ByteBuffer input = ByteBuffer.allocate(remaining.remaining() + chunk.length());
+    input.put(remaining).put(chunk.getBytes()).flip();
+    CharBuffer output = CharBuffer.allocate(input.remaining());
+    decoder.decode(input, output, false);
+    remaining = input;
+    return skipBom(output.flip());
+  }
+
+  public CharSequence finish() {
+    CharBuffer output = CharBuffer.allocate(remaining.remaining() + 1);
+    decoder.decode(remaining, output, true);
+    decoder.flush(output);
+    return skipBom(output.flip());
+  }
+
+  private CharBuffer skipBom(CharBuffer chars) {
+    if (!started && chars.hasRemaining()) {
+      started = true;
+      if (chars.get(chars.position()) == '\uFEFF') {
+        chars.position(chars.position() + 1);
+      }
+    }
+    return chars;
+  }
+}
@@ -0,0 +1,13 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+@RecordBuilder
+public record ChecksumMismatch(
+  String version,
+  String description,
+  String filepath,
+  Integer appliedChecksum,
+  int resolvedChecksum
+) {
+}
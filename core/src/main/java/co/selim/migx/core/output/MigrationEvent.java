@@ -0,0 +1,17 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+/**
+ * Progress of a migration run.
+ *
+ * @param filepath the script the event is about, {@code null} for events about the whole run
+ * @param output   the output of the script, only set for {@link MigrationEventType#SCRIPT_FINISHED}
+ */
+@RecordBuilder
+public record MigrationEvent(
+  MigrationEventType type,
+  String filepath,
+  MigrationOutput output
+) {
+}
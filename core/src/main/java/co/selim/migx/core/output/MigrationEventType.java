@@ -0,0 +1,13 @@
+package co.selim.migx.core.output;
+
+public enum MigrationEventType {
+  STARTED,
+  LOCK_ACQUIRED,
+  SCRIPT_STARTED,
+  SCRIPT_FINISHED,
+  /**
+   * The script has already been applied.
+   */
+  SKIPPED,
+  COMPLETED
+}
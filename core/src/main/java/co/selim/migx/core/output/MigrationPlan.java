@@ -0,0 +1,13 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+import java.util.List;
+
+@RecordBuilder
+public record MigrationPlan(
+  List<PendingMigration> pendingVersioned,
+  List<PendingMigration> pendingRepeatable,
+  List<ChecksumMismatch> checksumMismatches
+) {
+}
@@ -0,0 +1,13 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+import java.util.List;
+
+@RecordBuilder
+public record MigrationSummary(
+  List<MigrationOutput> migrations,
+  int connectionsUsed,
+  RoundTrips roundTrips
+) {
+}
@@ -0,0 +1,22 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+import java.util.List;
+
+/**
+ * @param missing    local migrations that have not been applied
+ * @param extra      applied migrations without a local script
+ * @param mismatched applied migrations whose local script has a different checksum
+ */
+@RecordBuilder
+public record MigrationValidation(
+  List<PendingMigration> missing,
+  List<UnresolvedMigration> extra,
+  List<ChecksumMismatch> mismatched
+) {
+
+  public boolean isValid() {
+    return missing.isEmpty() && extra.isEmpty() && mismatched.isEmpty();
+  }
+}
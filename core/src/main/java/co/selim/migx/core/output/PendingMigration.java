@@ -0,0 +1,13 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+@RecordBuilder
+public record PendingMigration(
+  String category,
+  String version,
+  String description,
+  String filepath,
+  int checksum
+) {
+}
@@ -0,0 +1,28 @@
+package co.selim.migx.core.output;
+
+public enum RoundTripKind {
+  /**
+   * Acquiring or releasing the migration lock.
+   */
+  LOCK,
+  /**
+   * Reading the schema history, its fingerprint or whether it exists.
+   */
+  HISTORY_READ,
+  /**
+   * Executing a statement of a migration script.
+   */
+  SCRIPT,
+  /**
+   * Creating the schema history table or recording migrations in it.
+   */
+  HISTORY_WRITE,
+  /**
+   * Beginning, committing or rolling back a transaction.
+   */
+  TRANSACTION_CONTROL,
+  /**
+   * Switching a connection to the migrated schema and back.
+   */
+  SCHEMA_SWITCH
+}
@@ -0,0 +1,32 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+/**
+ * The number of statements sent to the database during a run, by {@link RoundTripKind}.
+ */
+@RecordBuilder
+public record RoundTrips(
+  int lock,
+  int historyRead,
+  int script,
+  int historyWrite,
+  int transactionControl,
+  int schemaSwitch
+) {
+
+  public int get(RoundTripKind kind) {
+    return switch (kind) {
+      case LOCK -> lock;
+      case HISTORY_READ -> historyRead;
+      case SCRIPT -> script;
+      case HISTORY_WRITE -> historyWrite;
+      case TRANSACTION_CONTROL -> transactionControl;
+      case SCHEMA_SWITCH -> schemaSwitch;
+    };
+  }
+
+  public int total() {
+    return lock + historyRead + script + historyWrite + transactionControl + schemaSwitch;
+  }
+}
@@ -0,0 +1,18 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+/**
+ * The result of migrating a single target, either its summary or the failure that stopped it.
+ */
+@RecordBuilder
+public record TargetSummary(
+  String target,
+  MigrationSummary summary,
+  Throwable failure
+) {
+
+  public boolean succeeded() {
+    return failure == null;
+  }
+}
@@ -0,0 +1,11 @@
+package co.selim.migx.core.output;
+
+import io.avaje.recordbuilder.RecordBuilder;
+
+@RecordBuilder
+public record UnresolvedMigration(
+  String version,
+  String script,
+  Integer checksum
+) {
+}
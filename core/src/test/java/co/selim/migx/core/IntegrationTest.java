@@ -1,7 +1,16 @@
 package co.selim.migx.core;
 
+import co.selim.migx.core.output.MigrationEvent;
 import co.selim.migx.core.output.MigrationOutput;
+import co.selim.migx.core.output.MigrationPlan;
+import co.selim.migx.core.output.MigrationSummary;
+import co.selim.migx.core.output.MigrationValidation;
+import co.selim.migx.core.output.TargetSummary;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.sqlclient.Pool;
 import io.vertx.sqlclient.PoolOptions;
 import io.vertx.sqlclient.SqlConnectOptions;
@@ -18,8 +27,13 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
@@ -74,16 +88,53 @@ public abstract class IntegrationTest {
   }
 
   protected List<SchemaHistoryEntry> getSchemaHistory(JdbcDatabaseContainer<?> container) {
+    return getSchemaHistory(container, null);
+  }
+
+  protected List<SchemaHistoryEntry> getSchemaHistory(JdbcDatabaseContainer<?> container, String schema) {
     return withConnection(container, connection -> {
-      String query = "select * from flyway_schema_history order by installed_rank";
+      String table = schema == null ? "flyway_schema_history" : schema + ".flyway_schema_history";
+      String query = "select * from " + table + " order by installed_rank";
       try (ResultSet resultSet = connection.createStatement().executeQuery(query)) {
         return SchemaHistoryEntry.MAPPER.apply(resultSet);
       }
     });
   }
 
+  protected void executeSql(JdbcDatabaseContainer<?> container, String sql) {
+    withConnection(container, connection -> connection.createStatement().execute(sql));
+  }
+
+  // MySQL schemas are databases, which the test user may neither create nor access by default
+  protected void createSchema(JdbcDatabaseContainer<?> container, String schema) {
+    if (!(container instanceof MySQLContainer<?>)) {
+      executeSql(container, "create schema " + schema);
+      return;
+    }
+    withConnection(
+      () -> DriverManager.getConnection(container.getJdbcUrl(), "root", container.getPassword()),
+      connection -> {
+        connection.createStatement().execute("create database " + schema);
+        return connection.createStatement().execute("grant all on " + schema + ".* to '" + container.getUsername() + "'@'%'");
+      }
+    );
+  }
+
+  protected long countRows(JdbcDatabaseContainer<?> container, String from) {
+    return withConnection(container, connection -> {
+      try (ResultSet resultSet = connection.createStatement().executeQuery("select count(*) from " + from)) {
+        resultSet.next();
+        return resultSet.getLong(1);
+      }
+    });
+  }
+
   private <T> T withConnection(JdbcDatabaseContainer<?> container, ThrowingFunction<Connection, T> function) {
-    try (Connection connection = container.createConnection("")) {
+    return withConnection(() -> container.createConnection(""), function);
+  }
+
+  private <T> T withConnection(Callable<Connection> connect, ThrowingFunction<Connection, T> function) {
+    try (Connection connection = connect.call()) {
       return function.apply(connection);
     } catch (Throwable e) {
       Assertions.fail(e);
@@ -102,18 +153,34 @@ public abstract class IntegrationTest {
       .load();
   }
 
-  private Migx getMigx(JdbcDatabaseContainer<?> container, List<String> locations) {
+  private SqlConnectOptions getConnectOptions(JdbcDatabaseContainer<?> container) {
     String jdbcUrl = container.getJdbcUrl();
     String username = container.getUsername();
     String password = container.getPassword();
 
-    SqlConnectOptions connectOptions = SqlConnectOptions.fromUri(jdbcUrl.substring("jdbc:".length()))
+    return SqlConnectOptions.fromUri(jdbcUrl.substring("jdbc:".length()))
       .setUser(username)
       .setPassword(password);
+  }
+
+  private Migx getMigx(JdbcDatabaseContainer<?> container, List<String> locations) {
+    return getMigx(container, locations, new MigxOptions());
+  }
+
+  private Migx getMigx(JdbcDatabaseContainer<?> container, List<String> locations, MigxOptions options) {
+    return getMigx(container, locations, List.of(), options);
+  }
+
+  private Migx getMigx(
+    JdbcDatabaseContainer<?> container,
+    List<String> locations,
+    List<JavaMigration> javaMigrations,
+    MigxOptions options
+  ) {
     PoolOptions poolOptions = new PoolOptions().setMaxSize(4);
-    Pool client = Pool.pool(vertx, connectOptions, poolOptions);
+    Pool client = Pool.pool(vertx, getConnectOptions(container), poolOptions);
 
-    return Migx.create(vertx, client, locations);
+    return Migx.create(vertx, client, locations, javaMigrations, options);
   }
 
   protected List<MigrateOutput> migrateFlyway(JdbcDatabaseContainer<?> container, List<String> locations) {
@@ -121,9 +188,99 @@ public abstract class IntegrationTest {
   }
 
   protected List<MigrationOutput> migrateMigx(JdbcDatabaseContainer<?> container, List<String> locations) {
+    return await(getMigx(container, locations).migrate());
+  }
+
+  protected List<MigrationOutput> migrateMigx(
+    JdbcDatabaseContainer<?> container,
+    List<String> locations,
+    MigxOptions options
+  ) {
+    return await(getMigx(container, locations, options).migrate());
+  }
+
+  protected List<MigrationOutput> migrateMigx(
+    JdbcDatabaseContainer<?> container,
+    List<String> locations,
+    List<JavaMigration> javaMigrations
+  ) {
+    return await(getMigx(container, locations, javaMigrations, new MigxOptions()).migrate());
+  }
+
+  protected List<List<MigrationOutput>> migrateMigxConcurrently(
+    JdbcDatabaseContainer<?> container,
+    List<String> locations,
+    MigxOptions options,
+    int instances
+  ) {
+    List<Future<List<MigrationOutput>>> migrations = Stream.generate(() -> getMigx(container, locations, options).migrate())
+      .limit(instances)
+      .toList();
+    return await(Future.all(migrations).map(CompositeFuture::<List<MigrationOutput>>list));
+  }
+
+  // consumes one event at a time, so that the run has to wait for the consumer
+  protected List<MigrationEvent> migrateMigxStream(JdbcDatabaseContainer<?> container, List<String> locations) {
+    ReadStream<MigrationEvent> stream = getMigx(container, locations).migrateStream().pause();
+    List<MigrationEvent> events = new ArrayList<>();
+    Promise<List<MigrationEvent>> promise = Promise.promise();
+    stream
+      .handler(event -> {
+        events.add(event);
+        vertx.setTimer(1, timerId -> stream.fetch(1));
+      })
+      .exceptionHandler(promise::fail)
+      .endHandler(x -> promise.complete(events))
+      .fetch(1);
+    return await(promise.future());
+  }
+
+  protected MigrationSummary migrateMigxWithSummary(JdbcDatabaseContainer<?> container, List<String> locations) {
+    return await(getMigx(container, locations).migrateWithSummary());
+  }
+
+  protected MigrationPlan planMigx(JdbcDatabaseContainer<?> container, List<String> locations) {
+    return await(getMigx(container, locations).plan());
+  }
+
+  protected MigrationValidation validateMigx(JdbcDatabaseContainer<?> container, List<String> locations) {
+    return await(getMigx(container, locations).validate());
+  }
+
+  protected List<TargetSummary> migrateMigxSchemas(
+    JdbcDatabaseContainer<?> container,
+    List<String> schemas,
+    List<String> locations,
+    MigxOptions options
+  ) {
+    PoolOptions poolOptions = new PoolOptions().setMaxSize(options.getTargetConcurrency());
+    Pool client = Pool.pool(vertx, getConnectOptions(container), poolOptions);
+
+    return await(MultiMigx.forSchemas(vertx, client, schemas, locations, options).migrate());
+  }
+
+  protected List<TargetSummary> migrateMigxPools(
+    JdbcDatabaseContainer<?> container,
+    List<String> databases,
+    List<String> locations,
+    MigxOptions options
+  ) {
+    Map<String, Pool> pools = new LinkedHashMap<>();
+    for (String database : databases) {
+      SqlConnectOptions connectOptions = getConnectOptions(container).setDatabase(database);
+      pools.put(database, Pool.pool(vertx, connectOptions, new PoolOptions().setMaxSize(1)));
+    }
+
+    return await(MultiMigx.forPools(vertx, pools, locations, options).migrate());
+  }
+
+  protected MigrationSummary migrateMigxWithDedicatedPool(JdbcDatabaseContainer<?> container, List<String> locations) {
+    return await(Migx.create(vertx, getConnectOptions(container), locations).migrateWithSummary());
+  }
+
+  private <T> T await(Future<T> future) {
     try {
-      return getMigx(container, locations)
-        .migrate()
+      return future
         .toCompletionStage()
         .toCompletableFuture()
         .get();
@@ -1,14 +1,28 @@
 package co.selim.migx.core;
 
+import co.selim.migx.core.output.MigrationEvent;
+import co.selim.migx.core.output.MigrationEventType;
 import co.selim.migx.core.output.MigrationOutput;
+import co.selim.migx.core.output.MigrationPlan;
+import co.selim.migx.core.output.MigrationSummary;
+import co.selim.migx.core.output.MigrationValidation;
+import co.selim.migx.core.output.PendingMigration;
+import co.selim.migx.core.output.TargetSummary;
+import io.vertx.core.Future;
+import io.vertx.sqlclient.SqlConnection;
 import org.flywaydb.core.api.output.MigrateOutput;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.params.ParameterizedClass;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.testcontainers.containers.MySQLContainer;
 
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +49,53 @@ public class MigrationTest {
       assertIterableEquals(flywaySchemaHistory, migxSchemaHistory);
     }
 
+    @Test
+    @DisplayName("Scripts listed in a manifest aren't hashed")
+    void manifestScriptsAreNotHashed() {
+      List<String> migrationPaths = List.of("db/migration");
+      MigxMetrics metrics = new MigxMetrics();
+      migrateFlyway(flywayContainer, migrationPaths);
+      migrateMigx(migxContainer, migrationPaths, new MigxOptions().setManifestPath("manifest/manifest.tsv").setListener(metrics));
+
+      assertEquals(0, metrics.getCount(MigxListener.Phase.CHECKSUM));
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer));
+    }
+
+    @Test
+    @DisplayName("Scripts of locations that don't match the manifest are hashed")
+    void staleManifestIsIgnored() {
+      List<String> migrationPaths = List.of("db/migration");
+      MigxMetrics metrics = new MigxMetrics();
+      migrateFlyway(flywayContainer, migrationPaths);
+      migrateMigx(migxContainer, migrationPaths, new MigxOptions().setManifestPath("manifest/stale-manifest.tsv").setListener(metrics));
+
+      assertEquals(2, metrics.getCount(MigxListener.Phase.CHECKSUM));
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer));
+    }
+
+    @Test
+    @DisplayName("Migrations in nested directories are found")
+    void migrationsInNestedDirectoriesAreFound() {
+      List<String> migrationPaths = List.of("db/nested");
+      migrateFlyway(flywayContainer, migrationPaths);
+      List<MigrationOutput> migxMigrations = migrateMigx(migxContainer, migrationPaths);
+      List<SchemaHistoryEntry> flywaySchemaHistory = getSchemaHistory(flywayContainer);
+      List<SchemaHistoryEntry> migxSchemaHistory = getSchemaHistory(migxContainer);
+      assertEquals(3, migxMigrations.size());
+      assertIterableEquals(flywaySchemaHistory, migxSchemaHistory);
+    }
+
+    @Test
+    @DisplayName("Scripts that exceed the prefetch budget are streamed")
+    void scriptsExceedingPrefetchBudgetAreStreamed() {
+      List<String> migrationPaths = List.of("db/nested");
+      migrateFlyway(flywayContainer, migrationPaths);
+      migrateMigx(migxContainer, migrationPaths, new MigxOptions().setPrefetchWindow(1).setPrefetchMaxBytes(50));
+      List<SchemaHistoryEntry> flywaySchemaHistory = getSchemaHistory(flywayContainer);
+      List<SchemaHistoryEntry> migxSchemaHistory = getSchemaHistory(migxContainer);
+      assertIterableEquals(flywaySchemaHistory, migxSchemaHistory);
+    }
+
     @Test
     @DisplayName("Duplicate files are ignored")
     void duplicateFilesAreIgnored() {
@@ -70,6 +131,18 @@ public class MigrationTest {
       assertEquals(flywayMigrations.size(), migxMigrations.size());
     }
 
+    @Test
+    @Timeout(60)
+    @DisplayName("A script that can't be split fails the run and releases the lock")
+    void invalidScriptReleasesLock() throws URISyntaxException {
+      URL resource = getClass().getClassLoader().getResource("db/invalid-delimiter");
+      List<String> migrationPaths = List.of(Path.of(resource.toURI()).toString());
+      assertThrows(Throwable.class, () -> migrateMigx(migxContainer, migrationPaths));
+
+      MigxOptions options = new MigxOptions().setLockWaitTimeout(0);
+      assertEquals(2, migrateMigx(migxContainer, List.of("db/migration"), options).size());
+    }
+
     @Test
     @DisplayName("Migrations can be run twice with no effect")
     void migrationsCanBeRunTwiceWithNoEffect() {
@@ -84,5 +157,295 @@ public class MigrationTest {
       assertEquals(0, flywayMigrationsSecondRun.size());
       assertEquals(0, migxMigrationsSecondRun.size());
     }
+
+    @Test
+    @DisplayName("A run only uses a single connection")
+    void runUsesSingleConnection() {
+      List<String> migrationPaths = List.of("db/migration");
+      MigrationSummary summary = migrateMigxWithSummary(migxContainer, migrationPaths);
+
+      assertEquals(2, summary.migrations().size());
+      assertEquals(1, summary.connectionsUsed());
+    }
+
+    @Test
+    @DisplayName("Migrations can run on a dedicated pool")
+    void migrationsCanRunOnDedicatedPool() {
+      List<String> migrationPaths = List.of("db/migration");
+      migrateFlyway(flywayContainer, migrationPaths);
+      MigrationSummary summary = migrateMigxWithDedicatedPool(migxContainer, migrationPaths);
+
+      assertEquals(1, summary.connectionsUsed());
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer));
+    }
+
+    @Test
+    @DisplayName("Group mode rolls back all versioned migrations if one fails")
+    void groupModeRollsBackAllMigrations() {
+      List<String> migrationPaths = List.of("db/failing-migration");
+      MigxOptions options = new MigxOptions().setGroup(true);
+      if (migxContainer instanceof MySQLContainer<?>) {
+        assertThrows(IllegalArgumentException.class, () -> migrateMigx(migxContainer, migrationPaths, options));
+        return;
+      }
+
+      assertThrows(Throwable.class, () -> migrateMigx(migxContainer, migrationPaths, options));
+      assertTrue(getSchemaHistory(migxContainer).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Repeatable migrations can run concurrently and respect their dependencies")
+    void repeatableMigrationsCanRunConcurrently() {
+      List<String> migrationPaths = List.of("db/concurrent-repeatables");
+      MigxOptions options = new MigxOptions().setRepeatableConcurrency(3);
+      List<MigrationOutput> migrations = migrateMigx(migxContainer, migrationPaths, options);
+
+      assertEquals(4, migrations.size());
+      assertEquals(
+        List.of("V1__create_person.sql", "R__a_person_count_summary.sql", "R__person_count.sql", "R__person_names.sql"),
+        getSchemaHistory(migxContainer).stream().map(SchemaHistoryEntry::script).toList()
+      );
+    }
+
+    @Test
+    @DisplayName("Planning lists pending migrations without running them")
+    void planListsPendingMigrations() {
+      List<String> migrationPaths = List.of("db/migration");
+      MigrationPlan plan = planMigx(migxContainer, migrationPaths);
+
+      assertEquals(List.of("1"), plan.pendingVersioned().stream().map(PendingMigration::version).toList());
+      assertEquals(1, plan.pendingRepeatable().size());
+      assertTrue(plan.checksumMismatches().isEmpty());
+
+      migrateMigx(migxContainer, migrationPaths);
+      MigrationPlan migratedPlan = planMigx(migxContainer, migrationPaths);
+
+      assertTrue(migratedPlan.pendingVersioned().isEmpty());
+      assertTrue(migratedPlan.pendingRepeatable().isEmpty());
+      assertTrue(migratedPlan.checksumMismatches().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Validation reports migrations that are missing from the schema history")
+    void validationReportsMissingMigrations() {
+      List<String> migrationPaths = List.of("db/migration");
+      MigrationValidation validation = validateMigx(migxContainer, migrationPaths);
+
+      assertFalse(validation.isValid());
+      assertEquals(2, validation.missing().size());
+      assertTrue(validation.extra().isEmpty());
+      assertTrue(validation.mismatched().isEmpty());
+
+      migrateMigx(migxContainer, migrationPaths);
+
+      assertTrue(validateMigx(migxContainer, migrationPaths).isValid());
+    }
+
+    @Test
+    @DisplayName("A baseline takes the place of the versioned migrations it covers on an empty database")
+    void baselineRunsOnEmptyDatabase() {
+      List<String> migrationPaths = List.of("db/baseline");
+      List<MigrationOutput> migxMigrations = migrateMigx(migxContainer, migrationPaths);
+
+      assertEquals(List.of("2", "3"), migxMigrations.stream().map(MigrationOutput::version).toList());
+      List<SchemaHistoryEntry> schemaHistory = getSchemaHistory(migxContainer);
+      assertEquals(List.of("SQL_BASELINE", "SQL"), schemaHistory.stream().map(SchemaHistoryEntry::type).toList());
+      assertEquals(List.of("B2__person.sql", "V3__insert_person.sql"), schemaHistory.stream().map(SchemaHistoryEntry::script).toList());
+      assertTrue(validateMigx(migxContainer, migrationPaths).isValid());
+      assertEquals(0, migrateMigx(migxContainer, migrationPaths).size());
+    }
+
+    @Test
+    @DisplayName("A baseline doesn't affect databases that already have a schema history")
+    void baselineIsIgnoredOnExistingDatabase() {
+      migrateMigx(migxContainer, List.of("db/baseline/versioned"));
+      List<SchemaHistoryEntry> schemaHistory = getSchemaHistory(migxContainer);
+
+      List<String> migrationPaths = List.of("db/baseline");
+      assertEquals(0, migrateMigx(migxContainer, migrationPaths).size());
+      assertIterableEquals(schemaHistory, getSchemaHistory(migxContainer));
+      assertTrue(validateMigx(migxContainer, migrationPaths).isValid());
+    }
+
+    @Test
+    @DisplayName("Java migrations are ordered together with the scripts")
+    void javaMigrationsAreOrderedWithScripts() {
+      List<String> migrationPaths = List.of("db/migration");
+      List<JavaMigration> javaMigrations = List.of(new InsertPersonMigration());
+      migrateMigx(migxContainer, migrationPaths, javaMigrations);
+
+      List<SchemaHistoryEntry> schemaHistory = getSchemaHistory(migxContainer);
+      assertEquals(List.of("SQL", "JDBC", "SQL"), schemaHistory.stream().map(SchemaHistoryEntry::type).toList());
+      assertEquals(InsertPersonMigration.class.getName(), schemaHistory.get(1).script());
+      assertEquals(42, schemaHistory.get(1).checksum());
+      assertEquals(0, migrateMigx(migxContainer, migrationPaths, javaMigrations).size());
+    }
+
+    @Test
+    @DisplayName("Data files are loaded into their table in batches")
+    void dataFilesAreLoaded() {
+      List<String> migrationPaths = List.of("db/data");
+      MigxOptions options = new MigxOptions().setDataBatchSize(2);
+      migrateMigx(migxContainer, migrationPaths, options);
+
+      assertEquals(5, countRows(migxContainer, "country"));
+      assertEquals(1, countRows(migxContainer, "country where population is null"));
+      assertEquals(
+        List.of("SQL", "CUSTOM"),
+        getSchemaHistory(migxContainer).stream().map(SchemaHistoryEntry::type).toList()
+      );
+      assertEquals(0, migrateMigx(migxContainer, migrationPaths, options).size());
+    }
+
+    @Test
+    @DisplayName("Tenant schemas are migrated independently of each other")
+    void tenantSchemasAreMigratedIndependently() {
+      List<String> migrationPaths = List.of("db/migration");
+      createSchema(migxContainer, "tenant_a");
+      createSchema(migxContainer, "tenant_b");
+
+      migrateFlyway(flywayContainer, migrationPaths);
+      List<TargetSummary> summaries = migrateMigxSchemas(
+        migxContainer,
+        List.of("tenant_a", "missing_tenant", "tenant_b"),
+        migrationPaths,
+        new MigxOptions().setTargetConcurrency(2)
+      );
+
+      assertEquals(List.of("tenant_a", "missing_tenant", "tenant_b"), summaries.stream().map(TargetSummary::target).toList());
+      assertEquals(List.of(true, false, true), summaries.stream().map(TargetSummary::succeeded).toList());
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer, "tenant_a"));
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer, "tenant_b"));
+    }
+
+    @Test
+    @DisplayName("Tenant databases are migrated independently of each other with a pool each")
+    void tenantPoolsAreMigratedIndependently() {
+      // MySQL schemas are databases, which can also be migrated with a pool per tenant. PostgreSQL schemas
+      // live in the database of the container, which has no other databases to connect to
+      if (!(migxContainer instanceof MySQLContainer<?>)) {
+        return;
+      }
+      List<String> migrationPaths = List.of("db/migration");
+      createSchema(migxContainer, "tenant_a");
+      createSchema(migxContainer, "tenant_b");
+
+      migrateFlyway(flywayContainer, migrationPaths);
+      List<TargetSummary> summaries = migrateMigxPools(
+        migxContainer,
+        List.of("tenant_a", "missing_tenant", "tenant_b"),
+        migrationPaths,
+        new MigxOptions().setTargetConcurrency(2)
+      );
+
+      assertEquals(List.of(true, false, true), summaries.stream().map(TargetSummary::succeeded).toList());
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer, "tenant_a"));
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer, "tenant_b"));
+    }
+
+    @Test
+    @DisplayName("Schemas with the longest possible name get a lock of their own")
+    void longSchemaNamesAreMigrated() {
+      // PostgreSQL allows 63 characters, the MySQL lock name of the schema exceeds 64 characters and is shortened
+      String schema = "tenant_" + "x".repeat(56);
+      List<String> migrationPaths = List.of("db/migration");
+      createSchema(migxContainer, schema);
+
+      migrateFlyway(flywayContainer, migrationPaths);
+      List<TargetSummary> summaries = migrateMigxSchemas(migxContainer, List.of(schema), migrationPaths, new MigxOptions());
+
+      assertTrue(summaries.getFirst().succeeded());
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer, schema));
+    }
+
+    @Test
+    @DisplayName("Instances starting together wait for the lock and follow the one holding it")
+    void instancesFollowTheLockHolder() {
+      List<String> migrationPaths = List.of("db/migration");
+      MigxOptions options = new MigxOptions().setLockStrategy(LockStrategy.FOLLOW).setLockRetryInterval(10);
+
+      List<MigrateOutput> flywayMigrations = migrateFlyway(flywayContainer, migrationPaths);
+      List<List<MigrationOutput>> migxMigrations = migrateMigxConcurrently(migxContainer, migrationPaths, options, 5);
+
+      assertEquals(flywayMigrations.size(), migxMigrations.stream().mapToInt(List::size).sum());
+      assertIterableEquals(getSchemaHistory(flywayContainer), getSchemaHistory(migxContainer));
+    }
+
+    @Test
+    @DisplayName("Metrics cover every phase of a run")
+    void metricsCoverEveryPhase() {
+      List<String> migrationPaths = List.of("db/migration");
+      MigxMetrics metrics = new MigxMetrics();
+      migrateMigx(migxContainer, migrationPaths, new MigxOptions().setListener(metrics));
+
+      assertEquals(1, metrics.getRuns());
+      assertEquals(1, metrics.getCount(MigxListener.Phase.SCAN));
+      assertEquals(2, metrics.getCount(MigxListener.Phase.CHECKSUM));
+      assertEquals(1, metrics.getCount(MigxListener.Phase.LOCK_WAIT));
+      assertEquals(2, metrics.getCount(MigxListener.Phase.EXECUTE));
+      assertTrue(metrics.getCount(MigxListener.Phase.READ) >= 4);
+      assertTrue(metrics.getCount(MigxListener.Phase.HISTORY_WRITE) >= 1);
+      assertTrue(metrics.getBytesRead() > 0);
+      assertTrue(metrics.getRoundTrips() > 0);
+      assertTrue(metrics.getRunNanos() >= metrics.getNanos(MigxListener.Phase.EXECUTE));
+    }
+
+    @Test
+    @DisplayName("Progress is streamed as events")
+    void progressIsStreamed() {
+      List<String> migrationPaths = List.of("db/migration");
+      List<MigrationEvent> events = migrateMigxStream(migxContainer, migrationPaths);
+
+      assertEquals(
+        List.of(
+          MigrationEventType.STARTED,
+          MigrationEventType.LOCK_ACQUIRED,
+          MigrationEventType.SCRIPT_STARTED,
+          MigrationEventType.SCRIPT_FINISHED,
+          MigrationEventType.SCRIPT_STARTED,
+          MigrationEventType.SCRIPT_FINISHED,
+          MigrationEventType.COMPLETED
+        ),
+        events.stream().map(MigrationEvent::type).toList()
+      );
+      assertEquals("1", events.get(3).output().version());
+
+      List<MigrationEvent> upToDateEvents = migrateMigxStream(migxContainer, migrationPaths);
+
+      assertEquals(
+        List.of(
+          MigrationEventType.STARTED,
+          MigrationEventType.SKIPPED,
+          MigrationEventType.SKIPPED,
+          MigrationEventType.COMPLETED
+        ),
+        upToDateEvents.stream().map(MigrationEvent::type).toList()
+      );
+    }
+  }
+
+  static class InsertPersonMigration implements JavaMigration {
+
+    @Override
+    public String getVersion() {
+      return "2";
+    }
+
+    @Override
+    public String getDescription() {
+      return "insert person";
+    }
+
+    @Override
+    public int getChecksum() {
+      return 42;
+    }
+
+    @Override
+    public Future<Void> migrate(SqlConnection connection) {
+      return connection.query("insert into person(name, date_of_birth) values ('Ada', '1815-12-10')")
+        .execute()
+        .mapEmpty();
+    }
   }
 }
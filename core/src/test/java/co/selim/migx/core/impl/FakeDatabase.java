@@ -0,0 +1,266 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PreparedQuery;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowIterator;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Transaction;
+import io.vertx.sqlclient.Tuple;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory stand-in for a Postgres database, which answers the statements of the Postgres runner and
+ * counts every statement and transaction command it receives, including each statement of a batch. Only the
+ * schema history is kept, migration scripts are accepted without being executed.
+ */
+public class FakeDatabase {
+
+  private record HistoryEntry(int installedRank, String version, String type, String script, int checksum) {
+  }
+
+  private final List<HistoryEntry> history = new ArrayList<>();
+  private final Set<String> failingHistoryWrites = new HashSet<>();
+  private final Set<String> failingStatements = new HashSet<>();
+  private final List<Tuple> insertedRows = new ArrayList<>();
+  private boolean historyTableExists;
+  private boolean failHistoryTableCreation;
+  private boolean failUnlock;
+  private int sessionsEnded;
+  private int roundTrips;
+
+  public Pool pool() {
+    SqlConnection connection = proxy(SqlConnection.class, (method, args) -> switch (method.getName()) {
+      case "query" -> query((String) args[0]);
+      case "preparedQuery" -> query((String) args[0]);
+      case "begin" -> {
+        roundTrips++;
+        yield Future.succeededFuture(transaction());
+      }
+      case "close" -> Future.succeededFuture();
+      default -> throw new UnsupportedOperationException(method.getName());
+    });
+    return proxy(Pool.class, (method, args) -> switch (method.getName()) {
+      case "getConnection" -> Future.succeededFuture(connection);
+      case "close" -> Future.succeededFuture();
+      default -> throw new UnsupportedOperationException(method.getName());
+    });
+  }
+
+  public int roundTrips() {
+    return roundTrips;
+  }
+
+  public void resetRoundTrips() {
+    roundTrips = 0;
+  }
+
+  // rows of batched inserts into other tables than the schema history, which aren't stored otherwise
+  public List<Tuple> insertedRows() {
+    return insertedRows;
+  }
+
+  public void failNextHistoryTableCreation() {
+    failHistoryTableCreation = true;
+  }
+
+  // the lock isn't released, as if it had been lost
+  public void failUnlock() {
+    failUnlock = true;
+  }
+
+  public int sessionsEnded() {
+    return sessionsEnded;
+  }
+
+  // history batches that contain the script fail as a whole
+  public void failHistoryWrites(String script) {
+    failingHistoryWrites.add(script);
+  }
+
+  // statements that contain the fragment fail once they are executed
+  public void failStatementsContaining(String fragment) {
+    failingStatements.add(fragment);
+  }
+
+  // both plain and prepared queries, the statement is only answered once it is executed
+  private Object query(String sql) {
+    return proxy(PreparedQuery.class, (method, args) -> switch (method.getName()) {
+      case "execute" -> execute(sql, args == null ? Tuple.tuple() : (Tuple) args[0]);
+      case "executeBatch" -> {
+        @SuppressWarnings("unchecked")
+        List<Tuple> batch = (List<Tuple>) args[0];
+        roundTrips += batch.size();
+        if (sql.startsWith("insert into flyway_schema_history") &&
+          batch.stream().anyMatch(tuple -> failingHistoryWrites.contains(tuple.getString(4)))) {
+          yield Future.failedFuture("history write failed");
+        }
+        batch.forEach(tuple -> record(sql, tuple));
+        yield Future.succeededFuture(rowSet(List.of()));
+      }
+      default -> throw new UnsupportedOperationException(method.getName());
+    });
+  }
+
+  private Future<RowSet<Row>> execute(String sql, Tuple tuple) {
+    roundTrips++;
+    if (failingStatements.stream().anyMatch(sql::contains)) {
+      return Future.failedFuture("statement failed");
+    }
+    if (sql.contains("pg_try_advisory_lock")) {
+      return Future.succeededFuture(rowSet(List.of(row(Map.of("locked", true)))));
+    }
+    if (sql.contains("pg_advisory_unlock")) {
+      return Future.succeededFuture(rowSet(List.of(row(Map.of("unlocked", !failUnlock)))));
+    }
+    if (sql.contains("pg_terminate_backend")) {
+      sessionsEnded++;
+      return Future.failedFuture("terminating connection due to administrator command");
+    }
+    if (sql.contains("create table if not exists flyway_schema_history") && failHistoryTableCreation) {
+      failHistoryTableCreation = false;
+      return Future.failedFuture("connection reset");
+    }
+    if (sql.contains("create table if not exists flyway_schema_history")) {
+      historyTableExists = true;
+      return Future.succeededFuture(rowSet(List.of()));
+    }
+    if (sql.contains("to_regclass")) {
+      return Future.succeededFuture(rowSet(List.of(row(Map.of("exists", historyTableExists)))));
+    }
+    if (sql.contains("flyway_schema_history") && !historyTableExists) {
+      return Future.failedFuture("relation \"flyway_schema_history\" does not exist");
+    }
+    if (sql.contains("migration_count")) {
+      return Future.succeededFuture(rowSet(List.of(fingerprint())));
+    }
+    if (sql.contains("max(installed_rank)")) {
+      int maxInstalledRank = history.stream().mapToInt(HistoryEntry::installedRank).max().orElse(0);
+      return Future.succeededFuture(rowSet(List.of(row(Map.of("max", maxInstalledRank)))));
+    }
+    if (sql.startsWith("select installed_rank")) {
+      List<Row> rows = new ArrayList<>();
+      for (HistoryEntry entry : history) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("installed_rank", entry.installedRank());
+        columns.put("version", entry.version());
+        columns.put("type", entry.type());
+        columns.put("script", entry.script());
+        columns.put("checksum", entry.checksum());
+        rows.add(row(columns));
+      }
+      return Future.succeededFuture(rowSet(rows));
+    }
+    return Future.succeededFuture(rowSet(List.of()));
+  }
+
+  private void record(String sql, Tuple tuple) {
+    if (sql.startsWith("insert into flyway_schema_history")) {
+      history.add(new HistoryEntry(
+        tuple.getInteger(0),
+        tuple.getString(1),
+        tuple.getString(3),
+        tuple.getString(4),
+        tuple.getInteger(5)
+      ));
+    } else if (sql.startsWith("insert into")) {
+      insertedRows.add(tuple);
+    }
+  }
+
+  // versioned migrations and the latest entry of every repeatable migration, like the fingerprint query
+  private Row fingerprint() {
+    Map<String, SqlMigrationScript> applied = new LinkedHashMap<>();
+    for (HistoryEntry entry : history) {
+      SqlMigrationScript.Category category;
+      if (entry.version() == null) {
+        category = SqlMigrationScript.Category.REPEATABLE;
+      } else if (entry.type().endsWith("BASELINE")) {
+        category = SqlMigrationScript.Category.BASELINE;
+      } else {
+        category = SqlMigrationScript.Category.VERSIONED;
+      }
+      String version = entry.version() == null ? "" : entry.version();
+      applied.put(
+        category == SqlMigrationScript.Category.VERSIONED ? entry.version() : entry.script(),
+        new SqlMigrationScript(entry.script(), entry.script(), null, "", category, version, entry.checksum())
+      );
+    }
+    HistoryFingerprint fingerprint = HistoryFingerprint.of(new ArrayList<>(applied.values()));
+    Map<String, Object> columns = new LinkedHashMap<>();
+    columns.put("migration_count", fingerprint.migrations());
+    columns.put("checksum_sum", fingerprint.checksums());
+    columns.put("name_hash_sum", fingerprint.names());
+    return row(columns);
+  }
+
+  private Transaction transaction() {
+    return proxy(Transaction.class, (method, args) -> switch (method.getName()) {
+      case "commit", "rollback" -> {
+        roundTrips++;
+        yield Future.succeededFuture();
+      }
+      default -> throw new UnsupportedOperationException(method.getName());
+    });
+  }
+
+  private static RowSet<Row> rowSet(List<Row> rows) {
+    @SuppressWarnings("unchecked")
+    RowSet<Row> rowSet = proxy(RowSet.class, (method, args) -> switch (method.getName()) {
+      case "iterator" -> rowIterator(rows.iterator());
+      case "size", "rowCount" -> rows.size();
+      case "next" -> null;
+      default -> throw new UnsupportedOperationException(method.getName());
+    });
+    return rowSet;
+  }
+
+  private static RowIterator<Row> rowIterator(Iterator<Row> rows) {
+    @SuppressWarnings("unchecked")
+    RowIterator<Row> iterator = proxy(RowIterator.class, (method, args) -> switch (method.getName()) {
+      case "hasNext" -> rows.hasNext();
+      case "next" -> rows.next();
+      default -> throw new UnsupportedOperationException(method.getName());
+    });
+    return iterator;
+  }
+
+  // values are looked up by column name or position, getters don't convert between types
+  private static Row row(Map<String, Object> columns) {
+    List<Object> values = new ArrayList<>(columns.values());
+    return proxy(Row.class, (method, args) -> {
+      if (!method.getName().startsWith("get") || args == null || args.length != 1) {
+        throw new UnsupportedOperationException(method.getName());
+      }
+      return args[0] instanceof String column ? columns.get(column) : values.get((Integer) args[0]);
+    });
+  }
+
+  @FunctionalInterface
+  private interface Answer {
+    Object answer(Method method, Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, Answer answer) {
+    Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) ->
+      switch (method.getName()) {
+        case "hashCode" -> System.identityHashCode(self);
+        case "equals" -> self == args[0];
+        case "toString" -> "Fake" + type.getSimpleName();
+        default -> answer.answer(method, args);
+      }
+    );
+    return type.cast(proxy);
+  }
+}
@@ -0,0 +1,27 @@
+package co.selim.migx.core.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class HistoryFingerprintTest {
+
+  @Test
+  @DisplayName("Checksums are tied to their migration")
+  void swappedChecksumsChangeFingerprint() {
+    HistoryFingerprint fingerprint = HistoryFingerprint.of(List.of(versioned("1", 10), versioned("2", 20)));
+
+    assertEquals(fingerprint, HistoryFingerprint.of(List.of(versioned("2", 20), versioned("1", 10))));
+    assertNotEquals(fingerprint, HistoryFingerprint.of(List.of(versioned("1", 20), versioned("2", 10))));
+    assertNotEquals(fingerprint, HistoryFingerprint.of(List.of(versioned("1", 11), versioned("2", 19))));
+  }
+
+  private static SqlMigrationScript versioned(String version, int checksum) {
+    String filename = "V" + version + "__script.sql";
+    return new SqlMigrationScript(filename, filename, null, "script", SqlMigrationScript.Category.VERSIONED, version, checksum);
+  }
+}
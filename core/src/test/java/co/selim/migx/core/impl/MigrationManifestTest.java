@@ -0,0 +1,54 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.impl.util.Checksums;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MigrationManifestTest {
+
+  private static final Path RESOURCES = Path.of("src/test/resources");
+
+  @Test
+  @DisplayName("The manifest lists migrations with their checksums")
+  void manifestListsMigrations() throws IOException {
+    MigrationManifest manifest = MigrationManifest.generate(RESOURCES, List.of("db/migration", "db/missing"));
+
+    assertEquals(Set.of("db/migration", "db/missing"), manifest.locations());
+    assertEquals(
+      List.of("db/migration/R__seed_schema.sql", "db/migration/V1__init_schema.sql"),
+      manifest.entries().stream().map(MigrationManifest.Entry::path).toList()
+    );
+
+    MigrationManifest.Entry versioned = manifest.entries().get(1);
+    byte[] content = Files.readAllBytes(RESOURCES.resolve(versioned.path()));
+    assertEquals(SqlMigrationScript.Category.VERSIONED, versioned.category());
+    assertEquals("1", versioned.version());
+    assertEquals("init schema", versioned.description());
+    assertEquals(Checksums.calculateChecksum(Buffer.buffer(content)), versioned.checksum());
+  }
+
+  @Test
+  @DisplayName("The manifest of the tests is up to date")
+  void testManifestIsUpToDate() throws IOException {
+    MigrationManifest manifest = MigrationManifest.generate(RESOURCES, List.of("db/migration"));
+
+    assertEquals(manifest.format(), Files.readString(RESOURCES.resolve("manifest/manifest.tsv")));
+  }
+
+  @Test
+  @DisplayName("The manifest can be parsed from its formatted form")
+  void manifestRoundTrips() throws IOException {
+    MigrationManifest manifest = MigrationManifest.generate(RESOURCES, List.of("db/migration", "db/duplicate-versions"));
+
+    assertEquals(manifest, MigrationManifest.parse(manifest.format()));
+  }
+}
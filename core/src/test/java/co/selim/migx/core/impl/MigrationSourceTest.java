@@ -0,0 +1,87 @@
+package co.selim.migx.core.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MigrationSourceTest {
+
+  private final Vertx vertx = Vertx.vertx();
+
+  @AfterEach
+  void teardown() {
+    await(vertx.close());
+  }
+
+  @Test
+  @DisplayName("Nested migrations are listed from directories")
+  void nestedMigrationsAreListedFromDirectories() {
+    MigrationSource source = new MigrationSource(vertx);
+
+    List<MigrationFile> files = await(source.scan("db/nested"));
+
+    assertEquals(
+      List.of("2025/R__create_city_view.sql", "2025/q1/V2__insert_cities.sql", "V1__create_city.sql"),
+      files.stream().map(MigrationFile::script).sorted().toList()
+    );
+  }
+
+  @Test
+  @DisplayName("Nested migrations are listed and read from jars")
+  void nestedMigrationsAreReadFromJars(@TempDir Path directory) throws IOException {
+    Path jar = directory.resolve("migrations.jar");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+      for (String entry : List.of("db/", "db/jar/", "db/jar/sub/")) {
+        zip.putNextEntry(new ZipEntry(entry));
+        zip.closeEntry();
+      }
+      write(zip, "db/jar/V1__first.sql", "select 1;");
+      write(zip, "db/jar/sub/V2__second.sql", "select 2;");
+      write(zip, "db/other/V3__third.sql", "select 3;");
+    }
+
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+      Thread.currentThread().setContextClassLoader(classLoader);
+      MigrationSource source = new MigrationSource(vertx);
+
+      List<MigrationFile> files = await(source.scan("db/jar"));
+
+      assertEquals(
+        List.of("db/jar/V1__first.sql", "db/jar/sub/V2__second.sql"),
+        files.stream().map(MigrationFile::path).toList()
+      );
+      assertEquals("sub/V2__second.sql", files.get(1).script());
+      assertEquals("select 2;", await(files.get(1).content().readFully()).toString());
+    } finally {
+      Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+  }
+
+  private static void write(ZipOutputStream zip, String name, String content) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    zip.write(content.getBytes(StandardCharsets.UTF_8));
+    zip.closeEntry();
+  }
+
+  private static <T> T await(Future<T> future) {
+    return future.toCompletionStage()
+      .toCompletableFuture()
+      .join();
+  }
+}
@@ -0,0 +1,39 @@
+package co.selim.migx.core.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MigrationVersionTest {
+
+  @Test
+  @DisplayName("Versions are compared part by part")
+  void versionsAreComparedPartByPart() {
+    List<String> sorted = Stream.of("10", "1_10", "2", "1.2", "1_2_1", "1")
+      .map(MigrationVersion::parse)
+      .sorted()
+      .map(MigrationVersion::toString)
+      .toList();
+
+    assertEquals(List.of("1", "1.2", "1.2.1", "1.10", "2", "10"), sorted);
+  }
+
+  @Test
+  @DisplayName("Trailing zero parts and leading zeros don't change a version")
+  void zerosDontChangeVersion() {
+    assertEquals(MigrationVersion.parse("1_2"), MigrationVersion.parse("1.02.0"));
+    assertEquals(0, MigrationVersion.parse("1").compareTo(MigrationVersion.parse("1_0_0")));
+  }
+
+  @Test
+  @DisplayName("Version parts don't overflow")
+  void versionPartsDontOverflow() {
+    assertTrue(MigrationVersion.parse("20250101120000123").compareTo(MigrationVersion.parse("4294967296")) > 0);
+    assertTrue(MigrationVersion.parse("1_99999999999999999999").compareTo(MigrationVersion.parse("1_99999999999999999998")) > 0);
+  }
+}
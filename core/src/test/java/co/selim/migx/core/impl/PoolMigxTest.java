@@ -0,0 +1,121 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.JavaMigration;
+import co.selim.migx.core.MigxMetrics;
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.runner.PgMigrationRunner;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.SqlConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PoolMigxTest {
+
+  private final Vertx vertx = Vertx.vertx();
+  private final FakeDatabase database = new FakeDatabase();
+
+  @AfterEach
+  void teardown() {
+    await(vertx.close());
+  }
+
+  @Test
+  @DisplayName("A run fails if the history of its repeatable migrations can't be written")
+  void failedRepeatableHistoryWriteFailsRun() {
+    database.failHistoryWrites("R__seed_schema.sql");
+
+    Throwable failure = awaitFailure(migx(new MigxOptions()).migrate());
+    assertNotNull(failure);
+    assertTrue(failure.getMessage().contains("history write failed"));
+  }
+
+  @Test
+  @DisplayName("Concurrently run repeatable migrations fail if their history can't be written")
+  void failedConcurrentHistoryWriteFailsRun() {
+    database.failHistoryWrites("R__seed_schema.sql");
+
+    Throwable failure = awaitFailure(migx(new MigxOptions().setRepeatableConcurrency(2)).migrate());
+    assertNotNull(failure);
+    assertTrue(failure.getMessage().contains("history write failed"));
+  }
+
+  @Test
+  @DisplayName("Creating the schema history table is retried by the next run after it failed")
+  void failedHistoryTableCreationIsRetried() {
+    database.failNextHistoryTableCreation();
+    MigxMetrics metrics = new MigxMetrics();
+    PoolMigx migx = migx(new MigxOptions().setListener(metrics));
+
+    assertNotNull(awaitFailure(migx.migrate()));
+    assertEquals(1, metrics.getFailedRuns());
+    assertEquals(2, await(migx.migrate()).size());
+    assertEquals(1, metrics.getRuns());
+  }
+
+  @Test
+  @DisplayName("A lock that can't be released ends the session without failing the run")
+  void failedUnlockEndsSession() {
+    database.failUnlock();
+
+    assertEquals(2, await(migx(new MigxOptions()).migrate()).size());
+    assertEquals(1, database.sessionsEnded());
+  }
+
+  @Test
+  @DisplayName("Repeatable Java migrations with the same name are rejected")
+  void duplicateRepeatableJavaMigrationsAreRejected() {
+    MigxOptions options = new MigxOptions();
+    List<JavaMigration> javaMigrations = List.of(new RepeatableMigration(1), new RepeatableMigration(2));
+    PoolMigx migx = new PoolMigx(vertx, database.pool(), List.of("db/migration"), javaMigrations, new PgMigrationRunner(vertx, options), options);
+
+    Throwable failure = awaitFailure(migx.migrate());
+    assertInstanceOf(IllegalStateException.class, failure);
+    assertTrue(failure.getMessage().contains(RepeatableMigration.class.getName()));
+  }
+
+  private PoolMigx migx(MigxOptions options) {
+    return new PoolMigx(vertx, database.pool(), List.of("db/migration"), new PgMigrationRunner(vertx, options), options);
+  }
+
+  private record RepeatableMigration(int checksum) implements JavaMigration {
+
+    @Override
+    public String getVersion() {
+      return null;
+    }
+
+    @Override
+    public String getDescription() {
+      return "repeatable";
+    }
+
+    @Override
+    public int getChecksum() {
+      return checksum;
+    }
+
+    @Override
+    public Future<Void> migrate(SqlConnection connection) {
+      return Future.succeededFuture();
+    }
+  }
+
+  private static Throwable awaitFailure(Future<?> future) {
+    return await(future.transform(result -> Future.succeededFuture(result.failed() ? result.cause() : null)));
+  }
+
+  private static <T> T await(Future<T> future) {
+    return future.toCompletionStage()
+      .toCompletableFuture()
+      .join();
+  }
+}
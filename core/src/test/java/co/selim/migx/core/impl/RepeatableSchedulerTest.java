@@ -0,0 +1,29 @@
+package co.selim.migx.core.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RepeatableSchedulerTest {
+
+  @Test
+  @DisplayName("Dependencies are read from the leading comments")
+  void dependenciesAreReadFromLeadingComments() {
+    String header = """
+      -- Views on top of the shared functions
+      -- migx:depends-on R__functions.sql, views/R__base.sql
+      --   MIGX:DEPENDS-ON R__types.sql
+
+      create view v as select 1;
+      -- migx:depends-on R__ignored.sql
+      """;
+
+    assertEquals(
+      Set.of("R__functions.sql", "views/R__base.sql", "R__types.sql"),
+      RepeatableScheduler.parseDependencies(header)
+    );
+  }
+}
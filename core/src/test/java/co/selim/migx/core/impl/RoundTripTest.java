@@ -0,0 +1,111 @@
+package co.selim.migx.core.impl;
+
+import co.selim.migx.core.MigxMetrics;
+import co.selim.migx.core.MigxOptions;
+import co.selim.migx.core.impl.runner.PgMigrationRunner;
+import co.selim.migx.core.output.MigrationSummary;
+import co.selim.migx.core.output.RoundTripKind;
+import co.selim.migx.core.output.RoundTrips;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards the number of round trips of a run, raise a ceiling only if the additional round trips are intended.
+ */
+public class RoundTripTest {
+
+  private final Vertx vertx = Vertx.vertx();
+  private final FakeDatabase database = new FakeDatabase();
+
+  @AfterEach
+  void teardown() {
+    await(vertx.close());
+  }
+
+  @Test
+  @DisplayName("Migrating an empty database stays within the round trip ceilings")
+  void migratingEmptyDatabase() {
+    MigrationSummary summary = await(migx().migrateWithSummary());
+
+    assertEquals(2, summary.migrations().size());
+    assertCeilings(summary.roundTrips(), Map.of(
+      RoundTripKind.LOCK, 2,
+      RoundTripKind.HISTORY_READ, 2,
+      RoundTripKind.SCRIPT, 2,
+      RoundTripKind.HISTORY_WRITE, 3,
+      RoundTripKind.TRANSACTION_CONTROL, 4,
+      RoundTripKind.SCHEMA_SWITCH, 0
+    ));
+  }
+
+  @Test
+  @DisplayName("An up-to-date database is only checked with a single round trip")
+  void migratingUpToDateDatabase() {
+    await(migx().migrateWithSummary());
+    database.resetRoundTrips();
+
+    MigrationSummary summary = await(migx().migrateWithSummary());
+
+    assertEquals(List.of(), summary.migrations());
+    assertCeilings(summary.roundTrips(), Map.of(RoundTripKind.HISTORY_READ, 1));
+  }
+
+  @Test
+  @DisplayName("Every row of a data file is counted as a statement")
+  void dataFileRowsAreCounted() {
+    MigrationSummary summary = await(migx("db/data", new MigxOptions().setDataBatchSize(2)).migrateWithSummary());
+
+    assertEquals(2, summary.migrations().size());
+    assertEquals("CUSTOM", summary.migrations().get(1).type());
+    // the create table statement and one insert statement for each of the five rows, sent in three batches
+    assertEquals(6, summary.roundTrips().get(RoundTripKind.SCRIPT));
+    assertEquals(database.roundTrips(), summary.roundTrips().total());
+  }
+
+  @Test
+  @DisplayName("Statements of a failing script are counted")
+  void failingScriptStatementsAreCounted() {
+    database.failStatementsContaining("missing_table");
+    MigxMetrics metrics = new MigxMetrics();
+
+    Future<MigrationSummary> run = migx("db/failing-migration", new MigxOptions().setListener(metrics)).migrateWithSummary();
+    assertTrue(await(run.transform(result -> Future.succeededFuture(result.failed()))));
+
+    // failed runs have no summary, so the round trips reported to the listener are compared instead.
+    // the create table statement of the first script and the failing insert of the second one
+    assertEquals(2, metrics.getRoundTrips(RoundTripKind.SCRIPT));
+    assertEquals(database.roundTrips(), metrics.getRoundTrips());
+  }
+
+  private PoolMigx migx() {
+    return migx("db/migration", new MigxOptions());
+  }
+
+  private PoolMigx migx(String migrationPath, MigxOptions options) {
+    return new PoolMigx(vertx, database.pool(), List.of(migrationPath), new PgMigrationRunner(vertx, options), options);
+  }
+
+  // kinds without a ceiling must not be used at all
+  private void assertCeilings(RoundTrips roundTrips, Map<RoundTripKind, Integer> ceilings) {
+    for (RoundTripKind kind : RoundTripKind.values()) {
+      int ceiling = ceilings.getOrDefault(kind, 0);
+      assertTrue(roundTrips.get(kind) <= ceiling, kind + ": " + roundTrips.get(kind) + " round trips, at most " + ceiling + " expected");
+    }
+    assertEquals(database.roundTrips(), roundTrips.total(), "round trips received by the database");
+  }
+
+  private static <T> T await(Future<T> future) {
+    return future.toCompletionStage()
+      .toCompletableFuture()
+      .join();
+  }
+}
@@ -0,0 +1,98 @@
+package co.selim.migx.core.impl.util;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ChecksumsTest {
+
+  private static final List<String> SCRIPTS = List.of(
+    "",
+    "\n",
+    "\r\n\r\n",
+    "select 1;",
+    "create table a (id int);\ninsert into a values (1);\n",
+    "create table a (id int);\r\ninsert into a values (1);\r\n",
+    "create table a (id int);\rinsert into a values (1);\r",
+    "mixed;\n\r\n\rline endings;\n\n",
+    "  indented;\n\ttabbed;  \n",
+    "insert into names values ('Jürgen'), ('Zoë'), ('名前'), ('😀');\n",
+    "\n\nleading blank lines;"
+  );
+
+  @Test
+  @DisplayName("Checksums match the line based checksum")
+  void checksumsMatchLineBasedChecksum() {
+    for (String script : SCRIPTS) {
+      assertEquals(lineBasedChecksum(script), Checksums.calculateChecksum(buffer(script)), script);
+    }
+  }
+
+  @Test
+  @DisplayName("Checksums don't depend on how the input is chunked")
+  void checksumsDontDependOnChunks() {
+    for (String script : SCRIPTS) {
+      byte[] bytes = script.getBytes(StandardCharsets.UTF_8);
+      for (int split = 0; split <= bytes.length; split++) {
+        Checksums.Calculator calculator = new Checksums.Calculator();
+        calculator.update(bytes, 0, split);
+        calculator.update(bytes, split, bytes.length - split);
+        assertEquals(lineBasedChecksum(script), calculator.checksum(), script + " split at " + split);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("A leading byte order mark is ignored like Flyway does")
+  void byteOrderMarkIsIgnored() {
+    String script = "create table a (id int);\n";
+    byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    Buffer withBom = Buffer.buffer(bom).appendString(script);
+
+    assertEquals(lineBasedChecksum(script), Checksums.calculateChecksum(withBom));
+
+    Checksums.Calculator calculator = new Checksums.Calculator();
+    for (byte b : withBom.getBytes()) {
+      calculator.update(new byte[]{b}, 0, 1);
+    }
+    assertEquals(lineBasedChecksum(script), calculator.checksum());
+  }
+
+  @Test
+  @DisplayName("Bytes that only start like a byte order mark are part of the checksum")
+  void partialByteOrderMarkIsChecksummed() {
+    byte[] bytes = {(byte) 0xEF, (byte) 0xBB, 'a'};
+    CRC32 crc32 = new CRC32();
+    crc32.update(bytes);
+
+    assertEquals((int) crc32.getValue(), Checksums.calculateChecksum(Buffer.buffer(bytes)));
+  }
+
+  private static Buffer buffer(String script) {
+    return Buffer.buffer(script.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // the previous implementation, which reads the script line by line like Flyway does
+  private static int lineBasedChecksum(String input) {
+    CRC32 crc32 = new CRC32();
+    try (BufferedReader reader = new BufferedReader(new StringReader(input))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        crc32.update(line.getBytes(StandardCharsets.UTF_8));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return (int) crc32.getValue();
+  }
+}
@@ -0,0 +1,67 @@
+package co.selim.migx.core.impl.util;
+
+import co.selim.migx.core.impl.FakeDatabase;
+import co.selim.migx.core.impl.ScriptContent;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static co.selim.migx.core.impl.util.Pools.Implementation.MYSQL;
+import static co.selim.migx.core.impl.util.Pools.Implementation.POSTGRES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CsvLoaderTest {
+
+  private static final String CSV = """
+    # table: person
+    UserName,Email
+    selim,selim@example.com
+    miles,
+    """;
+
+  private final FakeDatabase database = new FakeDatabase();
+
+  @Test
+  @DisplayName("Mixed case columns match the lowercased columns on PostgreSQL")
+  void mixedCaseColumnsAreLowercasedOnPostgres() {
+    assertEquals(2, load(POSTGRES));
+
+    List<Tuple> rows = database.insertedRows();
+    JsonObject first = (JsonObject) rows.getFirst().getValue(0);
+    assertEquals("selim", first.getString("username"));
+    assertEquals("selim@example.com", first.getString("email"));
+    assertEquals(2, rows.size());
+  }
+
+  @Test
+  @DisplayName("Fields are passed as they are on MySQL")
+  void fieldsArePassedOnMySql() {
+    assertEquals(2, load(MYSQL));
+
+    List<Tuple> rows = database.insertedRows();
+    assertEquals(2, rows.size());
+    assertEquals("miles", rows.get(1).getValue(0));
+    assertNull(rows.get(1).getValue(1));
+  }
+
+  private int load(Pools.Implementation dialect) {
+    SqlConnection connection = await(database.pool().getConnection());
+    ScriptContent content = chunkHandler -> chunkHandler.apply(Buffer.buffer(CSV));
+    CsvLoader loader = new CsvLoader(connection, dialect, 2);
+    await(loader.load(content));
+    return loader.statements();
+  }
+
+  private static <T> T await(Future<T> future) {
+    return future.toCompletionStage()
+      .toCompletableFuture()
+      .join();
+  }
+}
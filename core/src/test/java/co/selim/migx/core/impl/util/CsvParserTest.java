@@ -0,0 +1,72 @@
+package co.selim.migx.core.impl.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvParserTest {
+
+  @Test
+  @DisplayName("Quoted fields can contain delimiters, line breaks and quotes")
+  void quotedFieldsAreKeptTogether() {
+    String csv = "code,name\r\n" +
+      "CI,\"Côte d'Ivoire\"\r\n" +
+      "KR,\"Korea, Republic of\"\r\n" +
+      "XX,\"line\nbreak and \"\"quotes\"\"\"\n";
+
+    assertEquals(
+      List.of(
+        List.of("code", "name"),
+        List.of("CI", "Côte d'Ivoire"),
+        List.of("KR", "Korea, Republic of"),
+        List.of("XX", "line\nbreak and \"quotes\"")
+      ),
+      CsvParser.parse(csv)
+    );
+  }
+
+  @Test
+  @DisplayName("Empty unquoted fields are null and empty lines are skipped")
+  void emptyFieldsAreNull() {
+    String csv = "a,b,c\n\n,\"\",x\n\n1,2,";
+
+    assertEquals(
+      List.of(
+        List.of("a", "b", "c"),
+        Arrays.asList(null, "", "x"),
+        Arrays.asList("1", "2", null)
+      ),
+      CsvParser.parse(csv)
+    );
+  }
+
+  @Test
+  @DisplayName("Records don't depend on where the input is split into chunks")
+  void chunkBoundariesDontMatter() {
+    String csv = "code,name\r\nCI,\"Côte \"\"d'Ivoire\"\"\"\r\nKR,\"Korea,\r\nRepublic of\"\r\n";
+    List<List<String>> expected = CsvParser.parse(csv);
+
+    for (int chunkSize = 1; chunkSize <= csv.length(); chunkSize++) {
+      List<List<String>> records = new ArrayList<>();
+      CsvParser parser = new CsvParser();
+      for (int start = 0; start < csv.length(); start += chunkSize) {
+        parser.feed(csv.substring(start, Math.min(csv.length(), start + chunkSize)), records::add);
+      }
+      parser.finish(records::add);
+      assertEquals(expected, records, "chunk size " + chunkSize);
+    }
+  }
+
+  @Test
+  @DisplayName("Unterminated quotes are rejected")
+  void unterminatedQuotesAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> CsvParser.parse("a\n\"b"));
+    assertThrows(IllegalArgumentException.class, () -> CsvParser.parse("a\n\"b\"c"));
+  }
+}
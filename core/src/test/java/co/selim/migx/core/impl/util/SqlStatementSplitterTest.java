@@ -0,0 +1,88 @@
+package co.selim.migx.core.impl.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static co.selim.migx.core.impl.util.Pools.Implementation.MYSQL;
+import static co.selim.migx.core.impl.util.Pools.Implementation.POSTGRES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SqlStatementSplitterTest {
+
+  @Test
+  @DisplayName("Delimiters in literals, identifiers and comments are ignored")
+  void delimitersInLiteralsAreIgnored() {
+    String sql = """
+      create table "a;b" (name text); -- comment;
+      insert into "a;b" values ('it''s; fine');
+      /* block; /* nested; */ still comment; */
+      select 1;
+      """;
+
+    assertEquals(
+      List.of(
+        "create table \"a;b\" (name text)",
+        "-- comment;\ninsert into \"a;b\" values ('it''s; fine')",
+        "/* block; /* nested; */ still comment; */\nselect 1"
+      ),
+      SqlStatementSplitter.split(POSTGRES, sql)
+    );
+  }
+
+  @Test
+  @DisplayName("Dollar quoted bodies and BEGIN ATOMIC blocks are kept together")
+  void dollarQuotesAreKeptTogether() {
+    String sql = """
+      create function one() returns int as $body$ begin return 1; end; $body$ language plpgsql;
+      create function two() returns int language sql begin atomic select case when true then 2 end; end;
+      select $$;$$, E'\\';';
+      """;
+
+    assertEquals(
+      List.of(
+        "create function one() returns int as $body$ begin return 1; end; $body$ language plpgsql",
+        "create function two() returns int language sql begin atomic select case when true then 2 end; end",
+        "select $$;$$, E'\\';'"
+      ),
+      SqlStatementSplitter.split(POSTGRES, sql)
+    );
+  }
+
+  @Test
+  @DisplayName("The MySQL DELIMITER command changes the delimiter")
+  void delimiterCommandChangesDelimiter() {
+    String sql = """
+      DELIMITER $$
+      create procedure seed() begin insert into `a;b` values ('\\';', "x;"); end $$
+      DELIMITER ;
+      # comment;
+      select 1;
+      """;
+
+    assertEquals(
+      List.of(
+        "create procedure seed() begin insert into `a;b` values ('\\';', \"x;\"); end",
+        "# comment;\nselect 1"
+      ),
+      SqlStatementSplitter.split(MYSQL, sql)
+    );
+  }
+
+  @Test
+  @DisplayName("Input can be fed in arbitrary chunks")
+  void inputCanBeChunked() {
+    String sql = "create function f() returns int as $tag$ select 1; $tag$ language sql; select 'x;y'; select 2";
+    List<String> statements = new ArrayList<>();
+    SqlStatementSplitter splitter = new SqlStatementSplitter(POSTGRES);
+    for (int i = 0; i < sql.length(); i += 3) {
+      splitter.feed(sql.substring(i, Math.min(sql.length(), i + 3)), statements::add);
+    }
+    splitter.finish(statements::add);
+
+    assertEquals(SqlStatementSplitter.split(POSTGRES, sql), statements);
+    assertEquals(3, statements.size());
+  }
+}
@@ -0,0 +1,5 @@
+create table person
+(
+  name  varchar(100),
+  email varchar(100)
+);
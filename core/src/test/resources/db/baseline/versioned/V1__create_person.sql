@@ -0,0 +1,4 @@
+create table person
+(
+  name varchar(100)
+);
@@ -0,0 +1 @@
+alter table person add column email varchar(100);
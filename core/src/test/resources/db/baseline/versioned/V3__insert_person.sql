@@ -0,0 +1,2 @@
+insert into person(name, email)
+values ('Selim', 'selim@example.com');
@@ -0,0 +1,4 @@
+-- migx:depends-on R__person_count.sql
+create or replace view person_summary as
+select total
+from person_count;
@@ -0,0 +1,3 @@
+create or replace view person_count as
+select count(*) as total
+from person;
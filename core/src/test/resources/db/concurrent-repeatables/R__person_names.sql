@@ -0,0 +1,3 @@
+create or replace view person_names as
+select name
+from person;
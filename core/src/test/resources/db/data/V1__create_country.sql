@@ -0,0 +1,6 @@
+create table country
+(
+  code       varchar(2) primary key,
+  name       varchar(100) not null,
+  population bigint
+);
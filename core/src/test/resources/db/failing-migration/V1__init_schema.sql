@@ -0,0 +1,5 @@
+create table person
+(
+  name          text,
+  date_of_birth date
+);
@@ -0,0 +1,2 @@
+insert into missing_table (name)
+values ('Selim');
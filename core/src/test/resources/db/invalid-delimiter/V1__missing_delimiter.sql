@@ -0,0 +1,5 @@
+DELIMITER
+create table person
+(
+  name text
+);
@@ -0,0 +1,3 @@
+create or replace view city_names as
+select name
+from city;
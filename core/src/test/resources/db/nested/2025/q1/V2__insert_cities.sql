@@ -0,0 +1,3 @@
+insert into city(name)
+values ('Berlin'),
+       ('Istanbul');
@@ -0,0 +1,4 @@
+create table city
+(
+  name text
+);
@@ -1,6 +1,7 @@
 package co.selim.migx.example;
 
 import co.selim.migx.core.Migx;
+import co.selim.migx.core.MigxOptions;
 import io.vertx.core.Vertx;
 import io.vertx.sqlclient.Pool;
 import io.vertx.sqlclient.PoolOptions;
@@ -8,6 +9,8 @@ import io.vertx.sqlclient.SqlConnectOptions;
 import org.testcontainers.containers.JdbcDatabaseContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 
+import java.util.List;
+
 public class ExampleApplication {
 
   private static Migx getMigx(Vertx vertx, JdbcDatabaseContainer<?> container) {
@@ -21,7 +24,8 @@ public class ExampleApplication {
     PoolOptions poolOptions = new PoolOptions().setMaxSize(4);
     Pool client = Pool.pool(vertx, connectOptions, poolOptions);
 
-    return Migx.create(vertx, client);
+    MigxOptions options = new MigxOptions().setManifestPath("META-INF/migx/example-manifest.tsv");
+    return Migx.create(vertx, client, List.of("db/migration"), options);
   }
 
   public static void main(String[] args) {